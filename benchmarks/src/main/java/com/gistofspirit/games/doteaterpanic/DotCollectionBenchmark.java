@@ -0,0 +1,104 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//How long DotCollection takes to check for collisions and to place the dots,
+//for grids of different sizes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DotCollectionBenchmark implements DotCollection.EatListener {
+	// Size of each grid cell; big enough for any dot
+	private static final int CELL_SIZE = 40;
+	// DotEater's size
+	private static final double DOT_EATER_RADIUS = 20;
+	// How far DotEater moves between checks
+	private static final double DOT_EATER_STEP = 2;
+
+	// Columns and rows of dots
+	@Param({ "8", "64", "512", "2048" })
+	private int gridSize;
+
+	// The dots
+	private DotCollection mDots;
+	// Where DotEater is; he moves diagonally across the area
+	private double mDotEaterPos;
+	// How many dots have been eaten, so the work isn't optimised away
+	private long mEaten;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		int area = gridSize * CELL_SIZE;
+		mDots = new DotCollection(area, area, gridSize, gridSize,
+				gridSize * gridSize / 8, new Random(0));
+		mDots.setEatenListener(this);
+		mDotEaterPos = DOT_EATER_RADIUS;
+	}
+
+	@Benchmark
+	public long checkCollisions() {
+		mDotEaterPos += DOT_EATER_STEP;
+		if (mDotEaterPos > gridSize * CELL_SIZE - DOT_EATER_RADIUS) {
+			mDotEaterPos = DOT_EATER_RADIUS;
+		}
+		mDots.checkCollisions();
+		return mEaten;
+	}
+
+	@Benchmark
+	public DotCollection init() {
+		mDots.init();
+		return mDots;
+	}
+
+	@Override
+	public void onDotEaten(DotStatus status) {
+		mEaten++;
+	}
+
+	@Override
+	public void onAllDotsEaten() {
+		// Nothing to do
+	}
+
+	@Override
+	public void getDotEaterLocation(Circle from, Circle to) {
+		from.set(mDotEaterPos, mDotEaterPos, DOT_EATER_RADIUS);
+		to.set(mDotEaterPos, mDotEaterPos, DOT_EATER_RADIUS);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//How long checking whether DotEater has hit a wall takes, for different
+//numbers of walls
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameWorldBenchmark {
+	// How many walls
+	@Param({ "2", "16", "128", "1024" })
+	private int wallCount;
+
+	// The game, with the walls spread along their paths
+	private GameWorld mWorld;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ArenaProfile classic = ArenaProfile.CLASSIC;
+		mWorld = new GameWorld(new ArenaProfile("walls", classic.getAreaWidth(),
+				classic.getAreaHeight(), classic.getDotColumns(),
+				classic.getDotRows(), classic.getMaxPills(), wallCount), 0);
+		Wall[] walls = mWorld.getWalls();
+		for (int i = 0; i < walls.length; i++) {
+			walls[i].move(i % 100);
+			// Start from here, as if the wall had been still
+			walls[i].savePosition();
+		}
+		mWorld.updateWallIndex();
+	}
+
+	@Benchmark
+	public boolean checkLoseCollisions() {
+		return mWorld.checkLoseCollisions();
+	}
+}
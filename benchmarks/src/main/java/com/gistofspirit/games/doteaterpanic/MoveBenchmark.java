@@ -0,0 +1,75 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//How long moving DotEater and a wall by one tick takes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+	// How many ticks DotEater walks before going back to the start
+	private static final int DOT_EATER_TICKS = 100;
+
+	private DotEater mDotEater;
+	private Wall mWall;
+	// Ticks since DotEater was last reset
+	private int mTicks;
+
+	@Setup
+	public void setUp() {
+		ArenaProfile classic = ArenaProfile.CLASSIC;
+		mDotEater = new DotEater(classic.getAreaWidth() / 2,
+				classic.getAreaHeight() / 2, Direction.RIGHT);
+		mWall = new Wall(Direction.RIGHT, classic.getAreaWidth(), 0,
+				classic.getAreaHeight(), new Random(0));
+	}
+
+	@Benchmark
+	public DotEater moveDotEater() {
+		if (++mTicks > DOT_EATER_TICKS) {
+			mTicks = 0;
+			mDotEater.reset();
+		}
+		mDotEater.move(1.0);
+		return mDotEater;
+	}
+
+	@Benchmark
+	public Wall moveWall() {
+		mWall.move(1.0);
+		return mWall;
+	}
+}
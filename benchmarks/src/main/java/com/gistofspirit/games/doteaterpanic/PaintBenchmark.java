@@ -0,0 +1,77 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//How long painting a whole frame takes, into an image rather than a window,
+//for arenas of different sizes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+	// Which arena
+	@Param({ "classic", "large", "huge" })
+	private String profile;
+
+	private PlayingArea mPlayingArea;
+	private BufferedImage mImage;
+	private Graphics2D mGraphics;
+
+	@Setup
+	public void setUp() throws IOException {
+		mPlayingArea = new PlayingArea(PlayingArea.DEFAULT_TICK_RATE,
+				ArenaProfile.get(profile), 0);
+		Dimension size = mPlayingArea.getPreferredSize();
+		mImage = new BufferedImage(size.width, size.height,
+				BufferedImage.TYPE_INT_RGB);
+		mGraphics = mImage.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		mGraphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paint() {
+		mPlayingArea.paint(mGraphics);
+		return mImage;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+
+package com.gistofspirit.games.doteaterpanic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Recording a game, saving it, loading it back and playing it again
+public class ReplayTest {
+	// How many games to record
+	private static final int GAMES = 10;
+	// Where a game is cut short, if it hasn't ended by then
+	private static final long MAX_TICKS = 20000;
+
+	@TempDir
+	File mDir;
+
+	// A saved game loads as it was and plays out the same way
+	@Test
+	public void savedGameLoadsAndPlaysTheSame() throws IOException {
+		for (int game = 0; game < GAMES; game++) {
+			ArenaProfile profile = game % 2 == 0 ? ArenaProfile.CLASSIC
+					: ArenaProfile.LARGE;
+			double tickDelta = game % 3 == 0 ? 0.5 : 1;
+			Replay replay = new Replay(profile, game, tickDelta);
+			GameWorld world = record(replay);
+
+			File file = new File(mDir, "game" + game + ".replay");
+			replay.save(file);
+			Replay loaded = Replay.load(file);
+			String name = "game " + game;
+			assertEquals(profile.getName(), loaded.getProfile().getName(),
+					name);
+			assertEquals(game, loaded.getSeed(), name);
+			assertEquals(tickDelta, loaded.getTickDelta(), name);
+			assertEquals(replay.getInputCount(), loaded.getInputCount(), name);
+			assertTrue(loaded.getInputCount() > 1, name);
+			assertEquals(world.getTicks(), loaded.getEndTick(), name);
+			assertEquals(world.getScore(), loaded.getScore(), name);
+
+			GameWorld played = loaded.play();
+			assertEquals(world.getTicks(), played.getTicks(), name);
+			assertEquals(world.getScore(), played.getScore(), name);
+			assertEquals(world.getLives(), played.getLives(), name);
+			assertEquals(world.isGameOver(), played.isGameOver(), name);
+			assertTrue(loaded.verify(), name);
+		}
+	}
+
+	// A replay that claims a different ending doesn't verify
+	@Test
+	public void wrongEndingFailsToVerify() throws IOException {
+		Replay replay = new Replay(ArenaProfile.CLASSIC, 1, 1);
+		GameWorld world = record(replay);
+		replay.finish(world.getTicks(), world.getScore() + 1);
+		File file = new File(mDir, "wrong.replay");
+		replay.save(file);
+		assertFalse(Replay.load(file).verify());
+	}
+
+	// Anything but a whole replay is rejected with an IOException
+	@Test
+	public void brokenFilesAreRejected() throws IOException {
+		File junk = new File(mDir, "junk.replay");
+		FileOutputStream out = new FileOutputStream(junk);
+		try {
+			out.write("not a replay".getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		assertThrows(IOException.class, () -> Replay.load(junk));
+
+		Replay replay = new Replay(ArenaProfile.CLASSIC, 2, 1);
+		record(replay);
+		File cut = new File(mDir, "cut.replay");
+		replay.save(cut);
+		RandomAccessFile file = new RandomAccessFile(cut, "rw");
+		try {
+			file.setLength(file.length() / 2);
+		} finally {
+			file.close();
+		}
+		assertThrows(IOException.class, () -> Replay.load(cut));
+
+		assertThrows(IOException.class,
+				() -> Replay.load(new File(mDir, "missing.replay")));
+	}
+
+	// Play a game with RandomInputPolicy, recording it, the way BatchRunner
+	// plays one, and return the world as it was left
+	private static GameWorld record(Replay replay) {
+		GameWorld world = new GameWorld(replay.getProfile(), replay.getSeed());
+		world.setReplay(replay);
+		InputPolicy policy = RandomInputPolicy.FACTORY.create(
+				replay.getSeed());
+		while (!world.isGameOver() && world.getTicks() < MAX_TICKS) {
+			if (world.isPaused()) {
+				world.start();
+			}
+			world.step(policy.nextInput(world), replay.getTickDelta());
+		}
+		replay.finish(world.getTicks(), world.getScore());
+		return world;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+
+package com.gistofspirit.games.doteaterpanic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//That every timer runs exactly once, no sooner than it's due and as soon as
+//the time has moved past its deadline
+public class TimerWheelTest {
+	// How many timers to shuffle around
+	private static final int TIMERS = 2000;
+	// How many times to schedule, cancel or move the time on
+	private static final int STEPS = 100000;
+
+	// A timer that counts how often it's run
+	private static class CountingTimer extends TimerWheel.Timer {
+		int mRuns;
+
+		@Override
+		protected void onExpire() {
+			mRuns++;
+		}
+	}
+
+	// Against keeping the deadlines in a plain array: random scheduling,
+	// moving and cancelling, with the time moving on by bits of a tick, not
+	// at all, or by more than a whole turn of the ring
+	@Test
+	public void everyTimerRunsOnceWhenDue() {
+		Random random = new Random(21);
+		TimerWheel wheel = new TimerWheel();
+		CountingTimer[] timers = new CountingTimer[TIMERS];
+		// When each timer should run, or NaN if it shouldn't
+		double[] deadlines = new double[TIMERS];
+		int[] runs = new int[TIMERS];
+		for (int i = 0; i < TIMERS; i++) {
+			timers[i] = new CountingTimer();
+			deadlines[i] = Double.NaN;
+		}
+		double time = 0;
+		int ran = 0;
+		for (int s = 0; s < STEPS; s++) {
+			int i = random.nextInt(TIMERS);
+			int what = random.nextInt(10);
+			if (what < 5) {
+				// Some already due, some further off than the ring goes
+				double deadline = time - 2 + random.nextDouble()
+						* (random.nextInt(10) == 0 ? 2000 : 20);
+				wheel.schedule(timers[i], deadline);
+				deadlines[i] = deadline;
+			} else if (what < 7) {
+				wheel.cancel(timers[i]);
+				deadlines[i] = Double.NaN;
+			} else {
+				int jump = random.nextInt(100);
+				if (jump == 0) {
+					time += 600 + random.nextDouble() * 600;
+				} else if (jump > 10) {
+					time += random.nextDouble() * 2;
+				}
+				wheel.advance(time);
+				for (int t = 0; t < TIMERS; t++) {
+					if (time > deadlines[t]) {
+						runs[t]++;
+						deadlines[t] = Double.NaN;
+						ran++;
+					}
+					String timer = "timer " + t + " at step " + s;
+					assertEquals(runs[t], timers[t].mRuns, timer);
+					assertEquals(!Double.isNaN(deadlines[t]),
+							timers[t].isPending(), timer);
+				}
+			}
+		}
+		// Make sure plenty actually ran
+		assertTrue(ran > STEPS / 10, "only " + ran + " ran");
+	}
+
+	// Timers scheduling themselves again and cancelling others while
+	// they run
+	@Test
+	public void timersCanScheduleWhileRunning() {
+		TimerWheel wheel = new TimerWheel();
+		CountingTimer victim = new CountingTimer();
+		TimerWheel.Timer killer = new TimerWheel.Timer() {
+			@Override
+			protected void onExpire() {
+				wheel.cancel(victim);
+			}
+		};
+		// Runs every 0.75 ticks, so sometimes twice in the same slot
+		CountingTimer repeating = new CountingTimer() {
+			@Override
+			protected void onExpire() {
+				super.onExpire();
+				wheel.schedule(this, mRuns * 0.75);
+			}
+		};
+		wheel.schedule(repeating, 0);
+		// In a later slot, so the killer gets there first even when both
+		// are due at once
+		wheel.schedule(killer, 5.5);
+		wheel.schedule(victim, 6.5);
+
+		double time = 0;
+		for (int step = 0; step < 400; step++) {
+			time += 0.25 + (step % 7) * 0.5;
+			wheel.advance(time);
+			// Run for every deadline 0, 0.75, 1.5, ... the time has passed
+			assertEquals((int) Math.ceil(time / 0.75), repeating.mRuns,
+					"at " + time);
+		}
+		assertTrue(repeating.isPending());
+		assertFalse(killer.isPending());
+		assertFalse(victim.isPending());
+		assertEquals(0, victim.mRuns);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//The swept circle check DotEater's collisions with dots rely on
+public class UtilsTest {
+	// How many moves to check
+	private static final int MOVES = 20000;
+	// How many points along a move to look at
+	private static final int SAMPLES = 1000;
+
+	// Against following the moving circle: touching anywhere along the way
+	// must count, and anything that counts must come within one step of
+	// touching
+	@Test
+	public void movingCircleMatchesFollowingTheMove() {
+		Random random = new Random(4);
+		int hits = 0;
+		for (int m = 0; m < MOVES; m++) {
+			double fromX = random.nextDouble() * 200;
+			double fromY = random.nextDouble() * 200;
+			// Mostly short moves, like a tick's, but some long ones
+			double reach = random.nextInt(10) == 0 ? 400 : 20;
+			double toX = fromX + random.nextGaussian() * reach;
+			double toY = fromY + random.nextGaussian() * reach;
+			double rad = 20;
+			double dotX = random.nextDouble() * 200;
+			double dotY = random.nextDouble() * 200;
+			double dotRad = random.nextBoolean() ? 5 : 10;
+
+			boolean touching = Utils.isMovingCircleTouching(fromX, fromY, toX,
+					toY, rad, dotX, dotY, dotRad);
+			double step = Math.hypot(toX - fromX, toY - fromY) / SAMPLES;
+			String move = "(" + fromX + "," + fromY + ") to (" + toX + ","
+					+ toY + "), dot at (" + dotX + "," + dotY + ")";
+			assertTrue(touching || !touchesAlongTheWay(fromX, fromY, toX, toY,
+					dotX, dotY, rad + dotRad), move);
+			assertTrue(!touching || touchesAlongTheWay(fromX, fromY, toX, toY,
+					dotX, dotY, rad + dotRad + step), move);
+			hits += touching ? 1 : 0;
+		}
+		assertTrue(hits > MOVES / 20 && hits < MOVES - MOVES / 20,
+				hits + " of " + MOVES + " moves touched");
+	}
+
+	// Not moving at all is the same as two still circles
+	@Test
+	public void stillCircleIsPlainDistance() {
+		assertTrue(Utils.isMovingCircleTouching(0, 0, 0, 0, 20, 25, 0, 5));
+		assertFalse(Utils.isMovingCircleTouching(0, 0, 0, 0, 20, 25.1, 0, 5));
+	}
+
+	// Passing right through a dot counts, even if it's missed at both ends
+	@Test
+	public void passingThroughCounts() {
+		assertTrue(Utils.isMovingCircleTouching(-100, 0, 100, 0, 20, 0, 0, 5));
+		assertFalse(Utils.isMovingCircleTouching(-100, 0, 100, 0, 20, 0, 26, 5));
+	}
+
+	// Whether the moving circle's centre comes within "distance" of the
+	// dot's at any of SAMPLES points along the move
+	private static boolean touchesAlongTheWay(double fromX, double fromY,
+			double toX, double toY, double dotX, double dotY, double distance) {
+		for (int i = 0; i <= SAMPLES; i++) {
+			double t = i / (double) SAMPLES;
+			double x = Utils.interpolate(fromX, toX, t);
+			double y = Utils.interpolate(fromY, toY, t);
+			if (Utils.getSquaredDistance(x, y, dotX, dotY) <= distance * distance) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,231 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//WallIndex against checking every wall, with walls coming from all four sides
+public class WallIndexTest {
+	// The arena the walls move across
+	private static final int AREA_SIZE = 4000;
+	// How many walls, and how many ticks they move for
+	private static final int WALLS = 400;
+	private static final int TICKS = 300;
+	// How many areas to check on each tick
+	private static final int QUERIES = 50;
+	// How many points along a tick to look at, when following things as they
+	// move
+	private static final int SAMPLES = 1000;
+	// The directions walls come from, in turn, as in GameWorld
+	private static final Direction[] DIRECTIONS = { Direction.RIGHT,
+			Direction.DOWN, Direction.LEFT, Direction.UP };
+
+	// Walls that stand still (as they were at the previous tick too), against
+	// Rectangle2D.intersects on each one
+	@Test
+	public void stillWallsMatchCheckingEachOne() {
+		Random random = new Random(1);
+		Wall[] walls = makeWalls(random);
+		WallIndex index = new WallIndex(walls);
+		Rectangle2D.Double area = new Rectangle2D.Double();
+		Rectangle2D.Double wallArea = new Rectangle2D.Double();
+		int hits = 0;
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			for (Wall wall : walls) {
+				wall.move(1);
+				wall.savePosition();
+			}
+			index.update();
+
+			for (int q = 0; q < QUERIES; q++) {
+				randomArea(random, area);
+				boolean expected = false;
+				for (Wall wall : walls) {
+					if (wall.getBounds2D(wallArea).intersects(area)) {
+						expected = true;
+						break;
+					}
+				}
+				assertEquals(expected, index.intersectsAny(area, area),
+						"tick " + tick + ", area " + area);
+				hits += expected ? 1 : 0;
+			}
+		}
+		assertHitsAndMisses(hits);
+	}
+
+	// Moving walls and areas, against an index of each wall on its own (so
+	// nothing is pruned)
+	@Test
+	public void movingWallsMatchCheckingEachOne() {
+		Random random = new Random(2);
+		Wall[] walls = makeWalls(random);
+		WallIndex index = new WallIndex(walls);
+		WallIndex[] single = new WallIndex[walls.length];
+		for (int i = 0; i < walls.length; i++) {
+			single[i] = new WallIndex(new Wall[] { walls[i] });
+		}
+		Rectangle2D.Double from = new Rectangle2D.Double();
+		Rectangle2D.Double to = new Rectangle2D.Double();
+		int hits = 0;
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			for (Wall wall : walls) {
+				wall.savePosition();
+				if (random.nextInt(20) == 0) {
+					wall.goFast();
+				} else if (random.nextInt(20) == 0) {
+					wall.goSlow();
+				}
+				wall.move(0.5 + random.nextDouble() * 4);
+			}
+			index.update();
+			for (WallIndex one : single) {
+				one.update();
+			}
+
+			for (int q = 0; q < QUERIES; q++) {
+				randomArea(random, from);
+				to.setRect(from.x + random.nextGaussian() * 50,
+						from.y + random.nextGaussian() * 50,
+						from.width, from.height);
+				boolean expected = false;
+				for (WallIndex one : single) {
+					if (one.intersectsAny(from, to)) {
+						expected = true;
+						break;
+					}
+				}
+				assertEquals(expected, index.intersectsAny(from, to),
+						"tick " + tick + ", from " + from + " to " + to);
+				hits += expected ? 1 : 0;
+			}
+		}
+		assertHitsAndMisses(hits);
+	}
+
+	// One wall at a time, against following the wall and the area through
+	// the tick: overlapping anywhere along the way must count, and anything
+	// that counts must come within one step of overlapping
+	@Test
+	public void sweptMatchesFollowingTheMove() {
+		Random random = new Random(3);
+		Wall[] walls = makeWalls(random);
+		Rectangle2D.Double from = new Rectangle2D.Double();
+		Rectangle2D.Double to = new Rectangle2D.Double();
+		Rectangle2D.Double wallFrom = new Rectangle2D.Double();
+		Rectangle2D.Double wallTo = new Rectangle2D.Double();
+		int hits = 0;
+		int checks = 0;
+
+		for (int tick = 0; tick < TICKS / 10; tick++) {
+			for (Wall wall : walls) {
+				wall.savePosition();
+				wall.goFast();
+				wall.move(0.5 + random.nextDouble() * 4);
+			}
+
+			for (int q = 0; q < QUERIES; q++) {
+				Wall wall = walls[random.nextInt(walls.length)];
+				WallIndex index = new WallIndex(new Wall[] { wall });
+				wall.getPrevBounds2D(wallFrom);
+				wall.getBounds2D(wallTo);
+				// Near the wall, so it's hit about as often as it's missed
+				from.setRect(wallFrom.getCenterX() + random.nextGaussian() * 150 - 20,
+						wallFrom.getCenterY() + random.nextGaussian() * 150 - 20,
+						40, 40);
+				to.setRect(from.x + random.nextGaussian() * 80,
+						from.y + random.nextGaussian() * 80, 40, 40);
+
+				boolean swept = index.intersectsAny(from, to);
+				double stepX = Math.abs(to.x - from.x - (wallTo.x - wallFrom.x))
+						/ SAMPLES;
+				double stepY = Math.abs(to.y - from.y - (wallTo.y - wallFrom.y))
+						/ SAMPLES;
+				assertTrue(swept || !overlapsAlongTheWay(from, to, wallFrom,
+						wallTo, 0, 0), "wall " + wallFrom + " to " + wallTo
+						+ ", area " + from + " to " + to);
+				assertTrue(!swept || overlapsAlongTheWay(from, to, wallFrom,
+						wallTo, stepX, stepY), "wall " + wallFrom + " to "
+						+ wallTo + ", area " + from + " to " + to);
+				hits += swept ? 1 : 0;
+				checks++;
+			}
+		}
+		assertTrue(hits > checks / 20 && hits < checks - checks / 20,
+				hits + " of " + checks + " areas hit a wall");
+	}
+
+	// Whether the area and the wall overlap at any of SAMPLES points through
+	// the tick, with the area grown by "growX" and "growY" each way
+	private static boolean overlapsAlongTheWay(Rectangle2D from,
+			Rectangle2D to, Rectangle2D wallFrom, Rectangle2D wallTo,
+			double growX, double growY) {
+		Rectangle2D.Double area = new Rectangle2D.Double();
+		Rectangle2D.Double wall = new Rectangle2D.Double();
+		for (int i = 0; i <= SAMPLES; i++) {
+			double t = i / (double) SAMPLES;
+			area.setRect(Utils.interpolate(from.getX(), to.getX(), t) - growX,
+					Utils.interpolate(from.getY(), to.getY(), t) - growY,
+					from.getWidth() + growX * 2, from.getHeight() + growY * 2);
+			wall.setRect(Utils.interpolate(wallFrom.getX(), wallTo.getX(), t),
+					Utils.interpolate(wallFrom.getY(), wallTo.getY(), t),
+					wallFrom.getWidth(), wallFrom.getHeight());
+			if (area.intersects(wall)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Make sure the checks weren't all one way, which would prove little
+	private static void assertHitsAndMisses(int hits) {
+		int checks = TICKS * QUERIES;
+		assertTrue(hits > checks / 20 && hits < checks - checks / 20,
+				hits + " of " + checks + " areas hit a wall");
+	}
+
+	// Walls from all four sides, spread out along their way
+	private static Wall[] makeWalls(Random random) {
+		Wall[] walls = new Wall[WALLS];
+		for (int i = 0; i < WALLS; i++) {
+			walls[i] = new Wall(DIRECTIONS[i % DIRECTIONS.length], AREA_SIZE, 0,
+					AREA_SIZE, random);
+			int steps = random.nextInt(AREA_SIZE / 6);
+			for (int s = 0; s < steps; s++) {
+				walls[i].move(1);
+			}
+		}
+		return walls;
+	}
+
+	// Somewhere in the arena, mostly DotEater's size but sometimes bigger
+	private static void randomArea(Random random, Rectangle2D.Double area) {
+		double size = random.nextInt(4) == 0 ? 40 + random.nextInt(400) : 40;
+		area.setRect(random.nextDouble() * AREA_SIZE - size / 2,
+				random.nextDouble() * AREA_SIZE - size / 2, size, size);
+	}
+}
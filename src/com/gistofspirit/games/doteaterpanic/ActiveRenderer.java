@@ -0,0 +1,110 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+//Draws frames straight to a canvas from the game loop's thread, instead of
+//asking Swing to repaint and waiting for it to get round to it. The canvas
+//is a heavyweight component of its own, so Swing never paints over it.
+public class ActiveRenderer {
+	// How many buffers to flip between
+	private static final int BUFFERS = 2;
+
+	// Very simple interface for whatever is drawn
+	public abstract interface Scene {
+		abstract void render(Graphics2D g);
+	}
+
+	// The canvas's buffers
+	private BufferStrategy mStrategy;
+	// The canvas's size, to keep drawing within it
+	private int mWidth;
+	private int mHeight;
+	// How long a frame may take before it counts as late, in nanoseconds
+	private long mFrameBudget;
+
+	// Frames that made it to the screen
+	private long mFramesShown;
+	// Frames that were late or had to be drawn again because the buffers
+	// were lost
+	private long mFramesDropped;
+
+	// Constructor. The canvas must already be showing. "frameBudget" is in
+	// nanoseconds.
+	public ActiveRenderer(Canvas canvas, long frameBudget) {
+		canvas.createBufferStrategy(BUFFERS);
+		mStrategy = canvas.getBufferStrategy();
+
+		mWidth = canvas.getWidth();
+		mHeight = canvas.getHeight();
+		mFrameBudget = frameBudget;
+	}
+
+	// Whether the canvas flips pages rather than copying the back buffer
+	public boolean isPageFlipping() {
+		return mStrategy.getCapabilities().isPageFlipping();
+	}
+
+	// Draw one frame and show it
+	public void render(Scene scene) {
+		long start = System.nanoTime();
+
+		do {
+			do {
+				Graphics2D g = (Graphics2D) mStrategy.getDrawGraphics();
+				try {
+					g.clipRect(0, 0, mWidth, mHeight);
+					scene.render(g);
+				} finally {
+					g.dispose();
+				}
+				if (mStrategy.contentsRestored()) {
+					// The buffer was lost while drawing; draw it again
+					mFramesDropped++;
+				}
+			} while (mStrategy.contentsRestored());
+
+			mStrategy.show();
+			if (mStrategy.contentsLost()) {
+				mFramesDropped++;
+			}
+		} while (mStrategy.contentsLost());
+
+		// Make sure the frame actually reaches the screen now
+		Toolkit.getDefaultToolkit().sync();
+
+		mFramesShown++;
+		if (System.nanoTime() - start > mFrameBudget) {
+			mFramesDropped++;
+		}
+	}
+
+	// The following functions return values
+	public long getFramesShown() {
+		return mFramesShown;
+	}
+
+	public long getFramesDropped() {
+		return mFramesDropped;
+	}
+}
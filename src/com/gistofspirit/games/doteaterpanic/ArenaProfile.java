@@ -0,0 +1,183 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+//How big the arena is and how much is in it. The classic game is one
+//profile; the bigger ones are for stress testing. Profiles can also be
+//loaded from a properties file, e.g.
+//  name=tall
+//  areaWidth=800
+//  areaHeight=1600
+//  dotColumns=8
+//  dotRows=16
+//  maxPills=20
+//  walls=4
+//Anything left out is taken from the classic profile.
+public class ArenaProfile {
+	// The smallest a grid cell can be, so a pill fits with room around it
+	private static final int MIN_CELL_SIZE = (int) (Dot.getRadius(DotStatus.PILL) * 2);
+
+	// Built-in profiles
+	// The original game
+	public static final ArenaProfile CLASSIC =
+			new ArenaProfile("classic", 800, 800, 8, 8, 10, 2);
+	// Ten thousand dots and a dozen walls
+	public static final ArenaProfile LARGE =
+			new ArenaProfile("large", 4000, 4000, 100, 100, 500, 12);
+	// A million dots and dozens of walls
+	public static final ArenaProfile HUGE =
+			new ArenaProfile("huge", 24000, 24000, 1000, 1000, 20000, 48);
+	// Hundreds of walls, coming from all four sides
+	public static final ArenaProfile WAVES =
+			new ArenaProfile("waves", 8000, 8000, 200, 200, 2000, 400);
+	private static final ArenaProfile[] BUILT_IN = { CLASSIC, LARGE, HUGE, WAVES };
+
+	private final String mName;
+	// Playing area's size
+	private final int mAreaWidth;
+	private final int mAreaHeight;
+	// How many columns and rows of dots
+	private final int mDotColumns;
+	private final int mDotRows;
+	// How many dots will be pills
+	private final int mMaxPills;
+	// How many walls
+	private final int mWallCount;
+
+	// Constructor. Throws IllegalArgumentException if the numbers don't make
+	// a playable arena.
+	public ArenaProfile(String name, int areaWidth, int areaHeight,
+			int dotColumns, int dotRows, int maxPills, int wallCount) {
+		if (dotColumns <= 0 || dotRows <= 0) {
+			throw new IllegalArgumentException(name
+					+ ": there must be at least one column and row of dots");
+		}
+		if ((long) dotColumns * dotRows > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(name + ": too many dots");
+		}
+		if (areaWidth / dotColumns < MIN_CELL_SIZE
+				|| areaHeight / dotRows < MIN_CELL_SIZE) {
+			throw new IllegalArgumentException(name + ": the area is too small for "
+					+ dotColumns + "x" + dotRows + " dots; each needs "
+					+ MIN_CELL_SIZE + " pixels");
+		}
+		if (maxPills < 0 || maxPills > (long) dotColumns * dotRows) {
+			throw new IllegalArgumentException(name
+					+ ": there can't be more pills than dots");
+		}
+		if (wallCount < 0) {
+			throw new IllegalArgumentException(name
+					+ ": the number of walls can't be negative");
+		}
+
+		mName = name;
+		mAreaWidth = areaWidth;
+		mAreaHeight = areaHeight;
+		mDotColumns = dotColumns;
+		mDotRows = dotRows;
+		mMaxPills = maxPills;
+		mWallCount = wallCount;
+	}
+
+	// Return the built-in profile with this name, or else load the file with
+	// this name
+	public static ArenaProfile get(String nameOrFile) throws IOException {
+		for (ArenaProfile profile : BUILT_IN) {
+			if (profile.getName().equals(nameOrFile)) {
+				return profile;
+			}
+		}
+		return load(new File(nameOrFile));
+	}
+
+	// Load a profile from a properties file
+	public static ArenaProfile load(File file) throws IOException {
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+
+		try {
+			return new ArenaProfile(
+					properties.getProperty("name", file.getName()),
+					getInt(properties, "areaWidth", CLASSIC.mAreaWidth),
+					getInt(properties, "areaHeight", CLASSIC.mAreaHeight),
+					getInt(properties, "dotColumns", CLASSIC.mDotColumns),
+					getInt(properties, "dotRows", CLASSIC.mDotRows),
+					getInt(properties, "maxPills", CLASSIC.mMaxPills),
+					getInt(properties, "walls", CLASSIC.mWallCount));
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException(file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	// Read a number from the properties, or use the default if it isn't there
+	private static int getInt(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	// The following functions return values
+	public String getName() {
+		return mName;
+	}
+
+	public int getAreaWidth() {
+		return mAreaWidth;
+	}
+
+	public int getAreaHeight() {
+		return mAreaHeight;
+	}
+
+	public int getDotColumns() {
+		return mDotColumns;
+	}
+
+	public int getDotRows() {
+		return mDotRows;
+	}
+
+	public int getMaxPills() {
+		return mMaxPills;
+	}
+
+	public int getWallCount() {
+		return mWallCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s (%dx%d, %dx%d dots, %d pills, %d walls)",
+				mName, mAreaWidth, mAreaHeight, mDotColumns, mDotRows,
+				mMaxPills, mWallCount);
+	}
+}
@@ -0,0 +1,273 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Plays many games at once without a window, e.g. to see how well a bot does.
+//Every game has its own world, seed and policy; nothing is shared between
+//them but the arena profile (which can't change), so they can run on any
+//thread. The games are split up on a work-stealing pool, so threads that
+//finish short games early help out with the rest.
+public class BatchRunner {
+	// Defaults for the command line
+	private static final int DEFAULT_GAMES = 1000;
+	private static final long DEFAULT_MAX_TICKS = 100000;
+	// Command line options
+	private static final String ARG_GAMES = "--games=";
+	private static final String ARG_THREADS = "--threads=";
+	private static final String ARG_SEED = "--seed=";
+	private static final String ARG_MAX_TICKS = "--max-ticks=";
+	private static final String ARG_TICK_RATE = "--tick-rate=";
+	private static final String ARG_PROFILE = "--profile=";
+	// How many buckets to show the scores in
+	private static final int HISTOGRAM_BUCKETS = 10;
+
+	// Play a batch of games with RandomInputPolicy and print the results
+	public static void main(String[] args) {
+		int games = DEFAULT_GAMES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = System.nanoTime();
+		long maxTicks = DEFAULT_MAX_TICKS;
+		int tickRate = GameWorld.BASE_TICK_RATE;
+		ArenaProfile profile = ArenaProfile.CLASSIC;
+		for (String arg : args) {
+			if (arg.startsWith(ARG_GAMES)) {
+				games = Integer.parseInt(arg.substring(ARG_GAMES.length()));
+			} else if (arg.startsWith(ARG_THREADS)) {
+				threads = Integer.parseInt(arg.substring(ARG_THREADS.length()));
+			} else if (arg.startsWith(ARG_SEED)) {
+				seed = Long.parseLong(arg.substring(ARG_SEED.length()));
+			} else if (arg.startsWith(ARG_MAX_TICKS)) {
+				maxTicks = Long.parseLong(arg.substring(ARG_MAX_TICKS.length()));
+			} else if (arg.startsWith(ARG_TICK_RATE)) {
+				tickRate = Integer.parseInt(arg.substring(ARG_TICK_RATE.length()));
+			} else if (arg.startsWith(ARG_PROFILE)) {
+				String name = arg.substring(ARG_PROFILE.length());
+				try {
+					profile = ArenaProfile.get(name);
+				} catch (IOException | IllegalArgumentException ex) {
+					System.err.println("Can't use profile " + name + ": "
+							+ ex.getMessage());
+					return;
+				}
+			} else {
+				System.err.println("Unknown option: " + arg);
+			}
+		}
+
+		System.out.println(String.format(
+				"%d games on %s, %d threads, %d ticks/s, seed %d",
+				games, profile, threads, tickRate, seed));
+		BatchRunner runner = new BatchRunner(profile, RandomInputPolicy.FACTORY,
+				GameWorld.BASE_TICK_RATE / (double) tickRate, maxTicks);
+		runner.run(games, threads, seed).print(System.out);
+	}
+
+	// What to play and how
+	private final ArenaProfile mProfile;
+	private final InputPolicy.Factory mPolicyFactory;
+	private final double mTickDelta;
+	private final long mMaxTicks;
+
+	// Constructor. Each game is played with a policy from "policyFactory",
+	// moving on by "tickDelta" each tick, until it's over or has lasted
+	// "maxTicks" ticks (clearing all the dots starts a new game, so a good
+	// bot could otherwise play for ever).
+	public BatchRunner(ArenaProfile profile, InputPolicy.Factory policyFactory,
+			double tickDelta, long maxTicks) {
+		if (tickDelta <= 0 || maxTicks <= 0) {
+			throw new IllegalArgumentException(
+					"Tick delta and maximum ticks must be positive");
+		}
+		mProfile = profile;
+		mPolicyFactory = policyFactory;
+		mTickDelta = tickDelta;
+		mMaxTicks = maxTicks;
+	}
+
+	// Play "games" games on "threads" threads. Each game's seed comes from
+	// "seed", so the same batch can be played again.
+	public Result run(int games, int threads, long seed) {
+		if (games <= 0 || threads <= 0) {
+			throw new IllegalArgumentException(
+					"Games and threads must be positive");
+		}
+		long[] seeds = new long[games];
+		SplittableRandom seedSource = new SplittableRandom(seed);
+		for (int i = 0; i < games; i++) {
+			seeds[i] = seedSource.nextLong();
+		}
+		// Each game only writes to its own place in these
+		int[] scores = new int[games];
+		long[] ticks = new long[games];
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		try {
+			pool.invoke(new GamesTask(seeds, scores, ticks, 0, games));
+		} finally {
+			pool.shutdown();
+		}
+		long time = System.nanoTime() - start;
+
+		return new Result(scores, ticks, time);
+	}
+
+	// Play one game to the end (or the tick limit) and return the world
+	public GameWorld play(long seed) {
+		GameWorld world = new GameWorld(mProfile, seed);
+		InputPolicy policy = mPolicyFactory.create(seed);
+		while (!world.isGameOver() && world.getTicks() < mMaxTicks) {
+			if (world.isPaused()) {
+				// A new round (or the first); carry on as if SPACE was pressed
+				world.start();
+			}
+			world.step(policy.nextInput(world), mTickDelta);
+		}
+		return world;
+	}
+
+	// Plays a range of the games, splitting it in two until there's one game
+	// each
+	private class GamesTask extends RecursiveAction {
+		private static final long serialVersionUID = -2281190823386127764L;
+
+		private final long[] mSeeds;
+		private final int[] mScores;
+		private final long[] mTicks;
+		// Games from "first" up to (not including) "end"
+		private final int mFirst;
+		private final int mEnd;
+
+		public GamesTask(long[] seeds, int[] scores, long[] ticks, int first,
+				int end) {
+			mSeeds = seeds;
+			mScores = scores;
+			mTicks = ticks;
+			mFirst = first;
+			mEnd = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (mEnd - mFirst > 1) {
+				int middle = (mFirst + mEnd) >>> 1;
+				invokeAll(new GamesTask(mSeeds, mScores, mTicks, mFirst, middle),
+						new GamesTask(mSeeds, mScores, mTicks, middle, mEnd));
+				return;
+			}
+			GameWorld world = play(mSeeds[mFirst]);
+			mScores[mFirst] = world.getScore();
+			mTicks[mFirst] = world.getTicks();
+		}
+	}
+
+	// How a batch went
+	public static class Result {
+		// Every game's score, sorted
+		private final int[] mScores;
+		// How many ticks all the games lasted, and how long the whole batch
+		// took in nanoseconds
+		private final long mTotalTicks;
+		private final long mTime;
+
+		public Result(int[] scores, long[] ticks, long time) {
+			mScores = scores.clone();
+			Arrays.sort(mScores);
+			mTime = time;
+			long total = 0;
+			for (long t : ticks) {
+				total += t;
+			}
+			mTotalTicks = total;
+		}
+
+		// The score "fraction" (0 to 1) of the way up the sorted scores
+		public int getScorePercentile(double fraction) {
+			int index = (int) Math.ceil(fraction * mScores.length) - 1;
+			return mScores[Math.max(0, Math.min(mScores.length - 1, index))];
+		}
+
+		public double getMeanScore() {
+			double total = 0;
+			for (int score : mScores) {
+				total += score;
+			}
+			return total / mScores.length;
+		}
+
+		public double getGamesPerSecond() {
+			return mScores.length / (mTime / 1e9);
+		}
+
+		public double getTicksPerSecond() {
+			return mTotalTicks / (mTime / 1e9);
+		}
+
+		public int getGames() {
+			return mScores.length;
+		}
+
+		public long getTotalTicks() {
+			return mTotalTicks;
+		}
+
+		public long getTime() {
+			return mTime;
+		}
+
+		// Print throughput, score percentiles and a histogram of the scores
+		public void print(PrintStream out) {
+			out.println(String.format("%d games, %d ticks in %.3f s",
+					mScores.length, mTotalTicks, mTime / 1e9));
+			out.println(String.format("%.1f games/s, %.0f ticks/s",
+					getGamesPerSecond(), getTicksPerSecond()));
+			out.println(String.format(
+					"Score: mean %.1f, min %d, p50 %d, p90 %d, p99 %d, max %d",
+					getMeanScore(), mScores[0], getScorePercentile(0.5),
+					getScorePercentile(0.9), getScorePercentile(0.99),
+					mScores[mScores.length - 1]));
+
+			int min = mScores[0];
+			int bucketSize = Math.max(1, (mScores[mScores.length - 1] - min)
+					/ HISTOGRAM_BUCKETS + 1);
+			int[] buckets = new int[HISTOGRAM_BUCKETS];
+			for (int score : mScores) {
+				buckets[Math.min(HISTOGRAM_BUCKETS - 1, (score - min) / bucketSize)]++;
+			}
+			int largest = 0;
+			for (int count : buckets) {
+				largest = Math.max(largest, count);
+			}
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				int from = min + i * bucketSize;
+				int bar = (int) Math.round(40.0 * buckets[i] / largest);
+				out.println(String.format("%7d-%-7d %6d %s", from,
+						from + bucketSize - 1, buckets[i],
+						"#".repeat(bar)));
+			}
+		}
+	}
+}
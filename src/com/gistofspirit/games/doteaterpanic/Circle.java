@@ -28,6 +28,15 @@ public class Circle {
 
 	// Simple constructor
 	public Circle(double x, double y, double rad) {
+		set(x, y, rad);
+	}
+
+	// Empty constructor, for a circle that will be set later
+	public Circle() {
+	}
+
+	// Change the circle, so the same one can be used over and over
+	public void set(double x, double y, double rad) {
 		mX = x;
 		mY = y;
 		mRad = rad;
@@ -21,60 +21,36 @@ package com.gistofspirit.games.doteaterpanic;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Paint;
-import java.awt.geom.AffineTransform;
+import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 
 //The "dots" that DotEater eats. "Pill" =  big dot
-public class Dot extends Ellipse2D.Double {
-	private static final long serialVersionUID = 2036685032521659429L;
-
+//Where each dot is and what state it's in is kept by DotCollection; this is
+//only how they're drawn.
+public class Dot {
 	// Constants
 	private static final double RADIUS_DOT = 5;
 	private static final double RADIUS_PILL = 10;
 	private static final Paint PAINT = Color.WHITE;
 
-	// Coordinates
-	private double mX;
-	private double mY;
-	// Size
-	private double mRadius;
-	// Status
-	private DotStatus mStatus;
-
-	// Initialise it as a simple dot
-	public Dot(double x, double y) {
-		super();
-		mX = x;
-		mY = y;
-		setStatus(DotStatus.NORMAL);
-	}
-
-	// Change size depending on the status
-	public void setStatus(DotStatus status) {
-		mStatus = status;
-		mRadius = Dot.getRadius(mStatus);
-		setFrame(-mRadius, -mRadius, mRadius * 2, mRadius * 2);
-	}
-
-	// Return status
-	public DotStatus getStatus() {
-		return mStatus;
+	// Add a dot of the given status at (x,y) to "dots", to be drawn along
+	// with the others in it (see fill). "frame" is any ellipse, reused for
+	// each dot. Eaten dots aren't added.
+	public static void append(Path2D dots, Ellipse2D frame, double x, double y,
+			DotStatus status) {
+		double radius = getRadius(status);
+		if (radius == 0) {
+			return;
+		}
+		frame.setFrame(x - radius, y - radius, radius * 2, radius * 2);
+		dots.append(frame, false);
 	}
 
-	// Draw the dot
-	public void draw(Graphics2D g) {
-		AffineTransform at = g.getTransform();
-
-		g.translate(mX, mY);
+	// Draw all the dots in "dots" at once
+	public static void fill(Graphics2D g, Shape dots) {
 		g.setPaint(PAINT);
-		g.fill(this);
-
-		g.setTransform(at);
-	}
-
-	// Return dot's size and location
-	public Circle getCircle() {
-		return new Circle(mX, mY, mRadius);
+		g.fill(dots);
 	}
 
 	// Static; correlate status with size
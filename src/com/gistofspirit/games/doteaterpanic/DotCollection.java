@@ -19,11 +19,23 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package com.gistofspirit.games.doteaterpanic;
 
 import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
+import java.awt.Rectangle;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.util.BitSet;
 import java.util.Random;
 
 //All the dots on the screen
 public class DotCollection {
+	// Every status, by the number stored for it (its ordinal)
+	private static final DotStatus[] STATUSES = DotStatus.values();
+	private static final byte STATUS_NORMAL = (byte) DotStatus.NORMAL.ordinal();
+	private static final byte STATUS_PILL = (byte) DotStatus.PILL.ordinal();
+	private static final byte STATUS_EATEN = (byte) DotStatus.EATEN.ordinal();
+	// The most dots drawn in one go. Bigger batches mean fewer calls, but
+	// a bigger shape to hold while filling it.
+	private static final int DRAW_BATCH = 4096;
+
 	// Area to scatter the dots in
 	private int mAreaWidth;
 	private int mAreaHeight;
@@ -32,11 +44,36 @@ public class DotCollection {
 	private int mDotRows;
 	// How many dots will be pills
 	private int mMaxPills;
+	// Random generator, shared with the rest of the world
+	private Random mRandom;
+	// Size of each grid cell
+	private int mCellWidth;
+	private int mCellHeight;
 
-	// The array of dots
-	private Dot[] mDots;
+	// The dots, kept as one array per property rather than one object per
+	// dot. There's one dot in each grid cell, so a cell's column and row
+	// lead straight to its index (see getIndex).
+	// Coordinates
+	private double[] mDotX;
+	private double[] mDotY;
+	// Status, as DotStatus ordinals
+	private byte[] mDotStatus;
+	// Which dots haven't been eaten yet
+	private BitSet mLiveDots;
 	// How many dots are still there (to avoid recalculating it often)
 	private int mDotsRemaining;
+	// Where DotEater was at the previous tick and where he is now; reused on
+	// every check
+	private Circle mDotEaterFrom = new Circle();
+	private Circle mDotEater = new Circle();
+	// The dots in the order they were eaten, so whoever draws them can catch
+	// up with what changed. Only the first mEatenCount are used.
+	private int[] mEatenOrder;
+	private int mEatenCount;
+	// Goes up every time the dots are placed again
+	private int mGeneration;
+	// Where the dots were last placed, for whoever draws them
+	private Placement mPlacement;
 
 	// Very simple listener implementation, to let the game know when a dot has
 	// been eaten and allow this class to know where DotEater is.
@@ -45,7 +82,8 @@ public class DotCollection {
 
 		abstract void onAllDotsEaten();
 
-		abstract Circle getDotEaterLocation();
+		// Where DotEater was at the previous tick and where he is now
+		abstract void getDotEaterLocation(Circle from, Circle to);
 	}
 
 	// Who listens
@@ -56,8 +94,11 @@ public class DotCollection {
 		eatListener = listener;
 	}
 
-	// Simple constructor which calls the initialiser
-	public DotCollection(int width, int height, int columns, int rows, int maxPills) {
+	// Simple constructor which calls the initialiser. Dots are placed with
+	// "random".
+	public DotCollection(int width, int height, int columns, int rows,
+			int maxPills, Random random) {
+		mRandom = random;
 		mAreaWidth = width;
 		mAreaHeight = height;
 		mDotColumns = columns;
@@ -69,11 +110,10 @@ public class DotCollection {
 
 	public void init() {
 		// Create dots in random positions, away from each other
-		Random dotsRandom = new Random();
 
 		// Size of each grid cell
-		int cellWidth = mAreaWidth / mDotColumns;
-		int cellHeight = mAreaHeight / mDotRows;
+		mCellWidth = mAreaWidth / mDotColumns;
+		mCellHeight = mAreaHeight / mDotRows;
 
 		// Total number of dots
 		mDotsRemaining = mDotColumns * mDotRows;
@@ -81,67 +121,235 @@ public class DotCollection {
 		// The maximum radius a dot could have
 		double radius = Dot.getRadius(DotStatus.PILL);
 
-		// Initialise array
-		mDots = new Dot[mDotsRemaining];
+		// Initialise arrays. The coordinates and eaten order end up in the
+		// placement, which may still be being drawn from, so they're always
+		// new; the rest can be reused.
+		mDotX = new double[mDotsRemaining];
+		mDotY = new double[mDotsRemaining];
+		mEatenOrder = new int[mDotsRemaining];
+		if (mDotStatus == null || mDotStatus.length != mDotsRemaining) {
+			mDotStatus = new byte[mDotsRemaining];
+			mLiveDots = new BitSet(mDotsRemaining);
+		}
+		mLiveDots.set(0, mDotsRemaining);
+		mEatenCount = 0;
 
-		for (int c = 0; c < mDotColumns; c++) {
-			for (int r = 0; r < mDotRows; r++) {
+		for (int r = 0; r < mDotRows; r++) {
+			for (int c = 0; c < mDotColumns; c++) {
 				// Each cell has one dot; randomise its position within the cell
 				// but keep it away from the edges
-				double x =
-					Utils.getRandomBetween(dotsRandom, (int) (c * cellWidth + radius), (int) ((c + 1) * cellWidth - radius));
-				double y =
-					Utils.getRandomBetween(dotsRandom, (int) (r * cellHeight + radius), (int) ((r + 1) * cellHeight - radius));
-				mDots[c * mDotColumns + r] = new Dot(x, y);
+				int i = getIndex(c, r);
+				mDotX[i] =
+					Utils.getRandomBetween(mRandom, (int) (c * mCellWidth + radius), (int) ((c + 1) * mCellWidth - radius));
+				mDotY[i] =
+					Utils.getRandomBetween(mRandom, (int) (r * mCellHeight + radius), (int) ((r + 1) * mCellHeight - radius));
+				mDotStatus[i] = STATUS_NORMAL;
 			}
 		}
 
-		// Select random dots and make them pills
-		for (int i = 1; i <= mMaxPills; i++) {
-			boolean isOK;
-			int x;
-			do {
-				isOK = true;
-				x = Utils.getRandomBetween(dotsRandom, 0, mDots.length - 1);
-				isOK = mDots[x].getStatus() != DotStatus.PILL;
-				// Make sure the randomly chosen dot is not already a pill
-			} while (!isOK);
-			mDots[x].setStatus(DotStatus.PILL);
+		// Select random dots and make them pills. Each pick is among the
+		// first "last" dots; if that one is already a pill, the last one
+		// can't be (it wasn't among the earlier picks), so it's taken
+		// instead. This needs exactly one random number per pill, however
+		// many of the dots are pills.
+		int dots = mDotStatus.length;
+		for (int last = dots - mMaxPills; last < dots; last++) {
+			int x = Utils.getRandomBetween(mRandom, 0, last);
+			if (mDotStatus[x] == STATUS_PILL) {
+				x = last;
+			}
+			mDotStatus[x] = STATUS_PILL;
 		}
+
+		// Anything drawn of the old dots is out of date now
+		mGeneration++;
+		mPlacement = new Placement(this);
 	}
 
-	// Draw all dots
-	public void draw(Graphics2D g) {
-		AffineTransform at = g.getTransform();
+	// How many dots haven't been eaten yet
+	public int getDotsRemaining() {
+		return mDotsRemaining;
+	}
 
-		for (Dot d : mDots) {
-			d.draw(g);
-		}
+	// How many dots have been eaten since they were placed
+	public int getEatenCount() {
+		return mEatenCount;
+	}
+
+	// Goes up every time the dots are placed again
+	public int getGeneration() {
+		return mGeneration;
+	}
+
+	// Where the dots were last placed
+	public Placement getPlacement() {
+		return mPlacement;
+	}
 
-		g.setTransform(at);
+	// Where in the arrays the dot of the given grid cell is. Dots are kept
+	// row by row.
+	private int getIndex(int column, int row) {
+		return row * mDotColumns + column;
 	}
 
-	// Check if DotEater is touching any dots and tell the listener what kind of
-	// dot it was
+	// Which of "cells" cells of size "cellSize" the coordinate falls in,
+	// keeping it within the grid
+	private static int getCell(double coordinate, int cellSize, int cells) {
+		int cell = (int) Math.floor(coordinate / cellSize);
+		if (cell < 0) {
+			return 0;
+		} else if (cell >= cells) {
+			return cells - 1;
+		}
+		return cell;
+	}
+
+	// Check if DotEater has touched any dots on his way from where he was at
+	// the previous tick and tell the listener what kind of dot it was. Every
+	// dot is kept inside its own cell, so only the cells DotEater passed over
+	// need to be checked.
 	public void checkCollisions() {
 		if (eatListener != null) {
-			Circle dotEater = eatListener.getDotEaterLocation();
-			for (Dot d : mDots) {
-				// Check DotEater's distance from each dot
-				if (Utils.getDistanceBetweenCircles(dotEater, d.getCircle()) <= 0) {
-					DotStatus oldStatus = d.getStatus();
-					if (oldStatus != DotStatus.EATEN) {
+			eatListener.getDotEaterLocation(mDotEaterFrom, mDotEater);
+			double rad = mDotEater.getRad();
+			double minX = Math.min(mDotEaterFrom.getX(), mDotEater.getX());
+			double maxX = Math.max(mDotEaterFrom.getX(), mDotEater.getX());
+			double minY = Math.min(mDotEaterFrom.getY(), mDotEater.getY());
+			double maxY = Math.max(mDotEaterFrom.getY(), mDotEater.getY());
+
+			// The cells DotEater's bounding box passed over
+			int firstColumn = getCell(minX - rad, mCellWidth, mDotColumns);
+			int lastColumn = getCell(maxX + rad, mCellWidth, mDotColumns);
+			int firstRow = getCell(minY - rad, mCellHeight, mDotRows);
+			int lastRow = getCell(maxY + rad, mCellHeight, mDotRows);
+
+			for (int r = firstRow; r <= lastRow; r++) {
+				for (int c = firstColumn; c <= lastColumn; c++) {
+					int i = getIndex(c, r);
+					if (!mLiveDots.get(i)) {
 						// We don't care about already eaten dots
-						d.setStatus(DotStatus.EATEN);
-						mDotsRemaining--;
-						eatListener.onDotEaten(oldStatus);
-						if (mDotsRemaining <= 0) {
-							// All dots eaten now
-							eatListener.onAllDotsEaten();
-						}
+						continue;
+					}
+					// Check DotEater's distance from the dot
+					if (isTouchingDotEater(i) && eat(i)) {
+						// All dots eaten now. The listener may have started
+						// over, so stop here.
+						return;
 					}
 				}
 			}
 		}
 	}
+
+	// Whether DotEater touched the dot on his way here
+	private boolean isTouchingDotEater(int i) {
+		return Utils.isMovingCircleTouching(mDotEaterFrom.getX(),
+				mDotEaterFrom.getY(), mDotEater.getX(), mDotEater.getY(),
+				mDotEater.getRad(), mDotX[i], mDotY[i],
+				Dot.getRadius(STATUSES[mDotStatus[i]]));
+	}
+
+	// Mark the dot eaten and tell the listener. Returns true if it was the
+	// last one.
+	private boolean eat(int i) {
+		DotStatus oldStatus = STATUSES[mDotStatus[i]];
+		mDotStatus[i] = STATUS_EATEN;
+		mLiveDots.clear(i);
+		mEatenOrder[mEatenCount] = i;
+		mEatenCount++;
+		mDotsRemaining--;
+		eatListener.onDotEaten(oldStatus);
+		if (mDotsRemaining <= 0) {
+			eatListener.onAllDotsEaten();
+			return true;
+		}
+		return false;
+	}
+
+	// Where the dots were placed and which were pills, for drawing them on
+	// another thread. Nothing in here changes once it's made, except the
+	// eaten order, which is only added to. Whoever draws must only look at as
+	// many eaten dots as they were told about along with the placement (see
+	// WorldSnapshot).
+	public static class Placement {
+		private final int mGeneration;
+		private final int mAreaWidth;
+		private final int mAreaHeight;
+		private final int mCellWidth;
+		private final int mCellHeight;
+		private final double[] mDotX;
+		private final double[] mDotY;
+		// Status each dot was placed with, as DotStatus ordinals
+		private final byte[] mDotStatus;
+		private final int[] mEatenOrder;
+
+		private Placement(DotCollection dots) {
+			mGeneration = dots.mGeneration;
+			mAreaWidth = dots.mAreaWidth;
+			mAreaHeight = dots.mAreaHeight;
+			mCellWidth = dots.mCellWidth;
+			mCellHeight = dots.mCellHeight;
+			mDotX = dots.mDotX;
+			mDotY = dots.mDotY;
+			mDotStatus = dots.mDotStatus.clone();
+			mEatenOrder = dots.mEatenOrder;
+		}
+
+		// Goes up every time the dots are placed again
+		public int getGeneration() {
+			return mGeneration;
+		}
+
+		public int getAreaWidth() {
+			return mAreaWidth;
+		}
+
+		public int getAreaHeight() {
+			return mAreaHeight;
+		}
+
+		// Draw every dot as it was placed, eaten or not. In one pass over the
+		// dots, those of each status are gathered into one shape, a batch at
+		// a time, and filled together rather than one by one.
+		public void drawDots(Graphics2D g) {
+			// One shape for each status that's drawn at all
+			Path2D.Double[] batches = new Path2D.Double[STATUSES.length];
+			int[] batchSizes = new int[STATUSES.length];
+			for (int status = 0; status < STATUSES.length; status++) {
+				if (Dot.getRadius(STATUSES[status]) > 0) {
+					batches[status] = new Path2D.Double();
+				}
+			}
+
+			Ellipse2D.Double frame = new Ellipse2D.Double();
+			for (int i = 0; i < mDotStatus.length; i++) {
+				byte status = mDotStatus[i];
+				Path2D.Double batch = batches[status];
+				if (batch == null) {
+					continue;
+				}
+				Dot.append(batch, frame, mDotX[i], mDotY[i], STATUSES[status]);
+				batchSizes[status]++;
+				if (batchSizes[status] == DRAW_BATCH) {
+					Dot.fill(g, batch);
+					batch.reset();
+					batchSizes[status] = 0;
+				}
+			}
+			for (int status = 0; status < STATUSES.length; status++) {
+				if (batchSizes[status] > 0) {
+					Dot.fill(g, batches[status]);
+				}
+			}
+		}
+
+		// Put the cell of the "eaten"th dot eaten in "bounds"
+		public Rectangle getEatenCellBounds(int eaten, Rectangle bounds) {
+			int i = mEatenOrder[eaten];
+			int c = (int) (mDotX[i] / mCellWidth);
+			int r = (int) (mDotY[i] / mCellHeight);
+			bounds.setBounds(c * mCellWidth, r * mCellHeight, mCellWidth, mCellHeight);
+			return bounds;
+		}
+	}
 }
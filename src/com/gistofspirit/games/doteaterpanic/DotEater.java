@@ -18,32 +18,15 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 
 package com.gistofspirit.games.doteaterpanic;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Paint;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Arc2D;
 import java.awt.geom.Rectangle2D;
 
 //Our hero
 public class DotEater {
 	// Constants
 	// Degrees his feet move at most
-	private static final double FEET_ANGLE = Math.PI / 2;
+	public static final double FEET_ANGLE = Math.PI / 2;
 	// How big DotEater is
-	private static final double BODY_RADIUS = 20.0;
-	// Foot width
-	private static final double FOOT_WIDTH = 12.0;
-	// Foot height
-	private static final double FOOT_HEIGHT = 6.0;
-	// Eye size
-	private static final double EYE_RADIUS = 3.0;
-	// His normal colour
-	private static final Paint PAINT_NORMAL = Color.CYAN;
-	// His colour when fast
-	private static final Paint PAINT_FAST = Color.RED;
-	// His eye colour
-	private static final Paint PAINT_EYE = Color.BLUE;
+	public static final double BODY_RADIUS = 20.0;
 	// His normal speed
 	private static final double SPEED_NORMAL = 2;
 	// His speed when fast
@@ -61,10 +44,13 @@ public class DotEater {
 	// Current coordinates
 	private double mX;
 	private double mY;
+	// Coordinates at the previous tick, to draw him in between ticks
+	private double mPrevX;
+	private double mPrevY;
 	// Current direction theta
 	private Direction mDirection;
-	// Current body colour
-	private Paint mBodyPaint;
+	// Whether he's going fast
+	private boolean mIsFast;
 	// Current speed
 	private double mSpeed;
 	// Current feet degrees
@@ -77,15 +63,8 @@ public class DotEater {
 	private double mDieDirInit = 0.0;
 	// Current direction when dying
 	private double mDieDirNow = 0.0;
-
-	// Parts that make him
-	private Arc2D.Double mBody;
-	private Arc2D.Double mEyeLeft;
-	private Arc2D.Double mEyeRight;
-	private Rectangle2D.Double mFootFrontLeft;
-	private Rectangle2D.Double mFootFrontRight;
-	private Rectangle2D.Double mFootBackLeft;
-	private Rectangle2D.Double mFootBackRight;
+	// Direction when dying at the previous tick
+	private double mPrevDieDirNow = 0.0;
 
 	// Very simple listener implementation to tell the game when DotEater is dead
 	public abstract interface DieListener {
@@ -103,34 +82,6 @@ public class DotEater {
 
 	// Constructor
 	public DotEater(double initX, double initY, Direction initDirection) {
-		// We want him to be drawn at (0,0) so the rectangle containing him
-		// must be centred there.
-		// The initial "start" and "extent" parameters don't matter
-		mBody = new Arc2D.Double(-BODY_RADIUS, -BODY_RADIUS,
-				BODY_RADIUS * 2, BODY_RADIUS * 2, 0, 360, Arc2D.PIE);
-
-		double eyeFromFront = BODY_RADIUS - (EYE_RADIUS * 2);
-		mEyeLeft = new Arc2D.Double(eyeFromFront, -(EYE_RADIUS * 3),
-				EYE_RADIUS * 2, EYE_RADIUS * 2, 0, 360, Arc2D.PIE);
-		mEyeRight = new Arc2D.Double(eyeFromFront, EYE_RADIUS,
-				EYE_RADIUS * 2, EYE_RADIUS * 2, 0, 360, Arc2D.PIE);
-
-		double footX = BODY_RADIUS * Math.cos(-45);
-		double footY = BODY_RADIUS * Math.sin(-45);
-
-		mFootFrontLeft = new Rectangle2D.Double(
-				footX, footY,
-				FOOT_WIDTH, FOOT_HEIGHT);
-		mFootFrontRight = new Rectangle2D.Double(
-				footX, -footY - FOOT_HEIGHT,
-				FOOT_WIDTH, FOOT_HEIGHT);
-		mFootBackLeft = new Rectangle2D.Double(
-				-footX, footY,
-				FOOT_WIDTH, FOOT_HEIGHT);
-		mFootBackRight = new Rectangle2D.Double(
-				-footX, -footY - FOOT_HEIGHT,
-				FOOT_WIDTH, FOOT_HEIGHT);
-
 		// Set initial coordinates and direction
 		mInitX = initX;
 		mInitY = initY;
@@ -145,6 +96,7 @@ public class DotEater {
 		mX = mInitX;
 		mY = mInitY;
 		mDirection = mInitDirection;
+		savePosition();
 		// Set feet to initial pos
 		mFeetAngle = Math.PI / 4;
 		// When the feet moves they'll be moving back
@@ -153,41 +105,27 @@ public class DotEater {
 		goSlow();
 	}
 
-	public void drawFoot(Graphics2D g,
-			Rectangle2D.Double foot, double theta) {
-		AffineTransform at = g.getTransform();
-
-		g.rotate(theta, foot.getX(), foot.getCenterY());
-		g.fill(foot);
-
-		g.setTransform(at);
+	// Where DotEater is drawn. "alpha" is how far (0 to 1) we are between
+	// the previous tick and the current one.
+	public double getDrawnX(double alpha) {
+		return Utils.interpolate(mPrevX, mX, alpha);
 	}
 
-	// Draw DotEater after rotating him based on his direction
-	public void draw(Graphics2D g) {
-		AffineTransform at = g.getTransform();
-
-		g.translate(mX, mY);
+	public double getDrawnY(double alpha) {
+		return Utils.interpolate(mPrevY, mY, alpha);
+	}
 
+	// Which way DotEater is drawn facing, in the same way
+	public double getDrawnTheta(double alpha) {
 		if (mDirection != Direction.CUSTOM) {
-			g.rotate(Utils.getDirectionTheta(mDirection));
-		} else {
-			g.rotate(mDieDirNow);
+			return Utils.getDirectionTheta(mDirection);
 		}
+		return Utils.interpolate(mPrevDieDirNow, mDieDirNow, alpha);
+	}
 
-		g.setPaint(mBodyPaint);
-		g.fill(mBody);
-
-		drawFoot(g, mFootFrontLeft, -mFeetAngle);
-		drawFoot(g, mFootFrontRight, mFeetAngle);
-		drawFoot(g, mFootBackLeft, -((Math.PI / 2) + mFeetAngle));
-		drawFoot(g, mFootBackRight, (Math.PI / 2) + mFeetAngle);
-
-		g.setPaint(PAINT_EYE);
-		g.fill(mEyeLeft);
-		g.fill(mEyeRight);
-
-		g.setTransform(at);
+	// Current feet degrees
+	public double getFeetAngle() {
+		return mFeetAngle;
 	}
 
 	// Start the dying animation
@@ -198,6 +136,7 @@ public class DotEater {
 			mIsDying = true;
 			mDieDirInit = Utils.getDirectionTheta(mDirection);
 			mDieDirNow = mDieDirInit;
+			mPrevDieDirNow = mDieDirNow;
 			mDirection = Direction.CUSTOM;
 		}
 	}
@@ -207,32 +146,74 @@ public class DotEater {
 		mDirection = dir;
 	}
 
+	// Which way DotEater is facing
+	public Direction getDirection() {
+		return mDirection;
+	}
+
+	// Whether DotEater is going fast
+	public boolean isFast() {
+		return mIsFast;
+	}
+
 	// Arc2D's getBounds2D function would show him centred at (0,0), but here
 	// we want to know the location where he appears to be disregarding the
 	// current AffineTransformation
 	public Rectangle2D getBounds2D() {
-		return new Rectangle2D.Double(mX - BODY_RADIUS, mY - BODY_RADIUS,
+		return getBounds2D(new Rectangle2D.Double());
+	}
+
+	// Same as above, but put it in the given rectangle instead of a new one
+	public Rectangle2D getBounds2D(Rectangle2D bounds) {
+		bounds.setRect(mX - BODY_RADIUS, mY - BODY_RADIUS,
+				BODY_RADIUS * 2, BODY_RADIUS * 2);
+		return bounds;
+	}
+
+	// Where DotEater was at the previous tick, in the given rectangle
+	public Rectangle2D getPrevBounds2D(Rectangle2D bounds) {
+		bounds.setRect(mPrevX - BODY_RADIUS, mPrevY - BODY_RADIUS,
 				BODY_RADIUS * 2, BODY_RADIUS * 2);
+		return bounds;
 	}
 
 	// Return DotEater's size and location
 
 	public Circle getCircle() {
-		return new Circle(mX, mY, BODY_RADIUS);
+		return getCircle(new Circle());
 	}
 
-	// Set speed and colour to the ones for when he's going fast.
+	// Same as above, but put it in the given circle instead of a new one
+	public Circle getCircle(Circle circle) {
+		circle.set(mX, mY, BODY_RADIUS);
+		return circle;
+	}
+
+	// Where DotEater was at the previous tick, in the given circle
+	public Circle getPrevCircle(Circle circle) {
+		circle.set(mPrevX, mPrevY, BODY_RADIUS);
+		return circle;
+	}
+
+	// Set speed (and so colour) to the ones for when he's going fast.
 
 	public void goFast() {
 		mSpeed = SPEED_FAST;
-		mBodyPaint = PAINT_FAST;
+		mIsFast = true;
 	}
 
-	// Set speed and colour to the ones for when he's going slow.
+	// Set speed (and so colour) to the ones for when he's going slow.
 
 	public void goSlow() {
 		mSpeed = SPEED_NORMAL;
-		mBodyPaint = PAINT_NORMAL;
+		mIsFast = false;
+	}
+
+	// Remember where DotEater is before the world moves on
+	public void savePosition() {
+		mPrevX = mX;
+		mPrevY = mY;
+		mPrevDieDirNow = mDieDirNow;
 	}
 
 	// Move DotEater. Ideally delta==1
@@ -0,0 +1,218 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+//How DotEater looks. He's drawn from pre-drawn frames ("sprites"), each made
+//the first time it's needed. Only used by whoever draws, never by the game
+//itself, so games without a window don't pay for it.
+public class DotEaterSprites {
+	// Constants
+	// Foot width
+	private static final double FOOT_WIDTH = 12.0;
+	// Foot height
+	private static final double FOOT_HEIGHT = 6.0;
+	// Eye size
+	private static final double EYE_RADIUS = 3.0;
+	// His normal colour
+	private static final Paint PAINT_NORMAL = Color.CYAN;
+	// His colour when fast
+	private static final Paint PAINT_FAST = Color.RED;
+	// His eye colour
+	private static final Paint PAINT_EYE = Color.BLUE;
+	// Half the size of a sprite; he's drawn at its centre and his feet
+	// stick out of his body, so leave room
+	private static final int SPRITE_HALF = (int) (DotEater.BODY_RADIUS * 2);
+	// How many different angles he can be drawn facing, over a full turn
+	private static final int SPRITE_THETA_STEPS = 64;
+	// How many different feet positions he can be drawn with
+	private static final int SPRITE_FEET_STEPS = 16;
+	// How many positions within a pixel he can be drawn at, across and down,
+	// so he still moves smoothly at low speeds
+	private static final int SPRITE_OFFSET_STEPS = 4;
+	// How many sprites to keep at most. Past that, the oldest is forgotten.
+	private static final int MAX_SPRITES = 256;
+
+	// Parts that make him
+	private Arc2D.Double mBody;
+	private Arc2D.Double mEyeLeft;
+	private Arc2D.Double mEyeRight;
+	private Rectangle2D.Double mFootFrontLeft;
+	private Rectangle2D.Double mFootFrontRight;
+	private Rectangle2D.Double mFootBackLeft;
+	private Rectangle2D.Double mFootBackRight;
+
+	// Sprites drawn so far, by angle, feet position, speed and position
+	// within a pixel (see draw)
+	private BufferedImage[] mSprites = new BufferedImage[SPRITE_THETA_STEPS
+			* (SPRITE_FEET_STEPS + 1) * 2 * SPRITE_OFFSET_STEPS * SPRITE_OFFSET_STEPS];
+	// Where in there each sprite kept is, oldest first from mSpriteNext
+	private int[] mSpriteOrder = new int[MAX_SPRITES];
+	// How many sprites are in there, and where the next one goes in
+	// mSpriteOrder
+	private int mSpriteCount;
+	private int mSpriteNext;
+
+	// Constructor
+	public DotEaterSprites() {
+		// We want him to be drawn at (0,0) so the rectangle containing him
+		// must be centred there.
+		// The initial "start" and "extent" parameters don't matter
+		mBody = new Arc2D.Double(-DotEater.BODY_RADIUS, -DotEater.BODY_RADIUS,
+				DotEater.BODY_RADIUS * 2, DotEater.BODY_RADIUS * 2, 0, 360, Arc2D.PIE);
+
+		double eyeFromFront = DotEater.BODY_RADIUS - (EYE_RADIUS * 2);
+		mEyeLeft = new Arc2D.Double(eyeFromFront, -(EYE_RADIUS * 3),
+				EYE_RADIUS * 2, EYE_RADIUS * 2, 0, 360, Arc2D.PIE);
+		mEyeRight = new Arc2D.Double(eyeFromFront, EYE_RADIUS,
+				EYE_RADIUS * 2, EYE_RADIUS * 2, 0, 360, Arc2D.PIE);
+
+		double footX = DotEater.BODY_RADIUS * Math.cos(-45);
+		double footY = DotEater.BODY_RADIUS * Math.sin(-45);
+
+		mFootFrontLeft = new Rectangle2D.Double(
+				footX, footY,
+				FOOT_WIDTH, FOOT_HEIGHT);
+		mFootFrontRight = new Rectangle2D.Double(
+				footX, -footY - FOOT_HEIGHT,
+				FOOT_WIDTH, FOOT_HEIGHT);
+		mFootBackLeft = new Rectangle2D.Double(
+				-footX, footY,
+				FOOT_WIDTH, FOOT_HEIGHT);
+		mFootBackRight = new Rectangle2D.Double(
+				-footX, -footY - FOOT_HEIGHT,
+				FOOT_WIDTH, FOOT_HEIGHT);
+	}
+
+	// Draw DotEater at (x,y), facing "theta" with his feet at "feetAngle", as
+	// they were when the world was last looked at (see WorldSnapshot)
+	public void draw(Graphics2D g, double x, double y, double theta,
+			double feetAngle, boolean isFast) {
+		int thetaStep = (int) Math.round(theta / (Math.PI * 2) * SPRITE_THETA_STEPS);
+		thetaStep = Math.floorMod(thetaStep, SPRITE_THETA_STEPS);
+		int feetStep = (int) Math.round(feetAngle / DotEater.FEET_ANGLE * SPRITE_FEET_STEPS);
+		feetStep = Math.max(0, Math.min(SPRITE_FEET_STEPS, feetStep));
+
+		// The sprite goes at a whole pixel; where he is within that pixel is
+		// drawn into the sprite
+		int left = (int) Math.floor(x) - SPRITE_HALF;
+		int offsetX = (int) Math.round((x - Math.floor(x)) * SPRITE_OFFSET_STEPS);
+		if (offsetX == SPRITE_OFFSET_STEPS) {
+			left++;
+			offsetX = 0;
+		}
+		int top = (int) Math.floor(y) - SPRITE_HALF;
+		int offsetY = (int) Math.round((y - Math.floor(y)) * SPRITE_OFFSET_STEPS);
+		if (offsetY == SPRITE_OFFSET_STEPS) {
+			top++;
+			offsetY = 0;
+		}
+
+		int index = ((thetaStep * (SPRITE_FEET_STEPS + 1) + feetStep) * 2
+				+ (isFast ? 1 : 0)) * SPRITE_OFFSET_STEPS * SPRITE_OFFSET_STEPS
+				+ offsetY * SPRITE_OFFSET_STEPS + offsetX;
+		BufferedImage sprite = mSprites[index];
+		if (sprite == null) {
+			if (mSpriteCount >= MAX_SPRITES) {
+				// Too many; forget the oldest to make room
+				mSprites[mSpriteOrder[mSpriteNext]] = null;
+			} else {
+				mSpriteCount++;
+			}
+			sprite = createSprite(g, thetaStep * (Math.PI * 2) / SPRITE_THETA_STEPS,
+					feetStep * DotEater.FEET_ANGLE / SPRITE_FEET_STEPS,
+					isFast ? PAINT_FAST : PAINT_NORMAL,
+					offsetX / (double) SPRITE_OFFSET_STEPS,
+					offsetY / (double) SPRITE_OFFSET_STEPS);
+			mSprites[index] = sprite;
+			mSpriteOrder[mSpriteNext] = index;
+			mSpriteNext = (mSpriteNext + 1) % MAX_SPRITES;
+		}
+
+		g.drawImage(sprite, left, top, null);
+	}
+
+	// Put the area draw() covers at (x,y) in "bounds"
+	public static Rectangle getDrawnBounds(double x, double y, Rectangle bounds) {
+		// One more pixel, in case the position within a pixel rounds up
+		bounds.setBounds((int) Math.floor(x) - SPRITE_HALF,
+				(int) Math.floor(y) - SPRITE_HALF,
+				SPRITE_HALF * 2 + 1, SPRITE_HALF * 2 + 1);
+		return bounds;
+	}
+
+	// Draw DotEater into a new image that suits the given graphics, moved by
+	// (offsetX,offsetY) from its centre
+	private BufferedImage createSprite(Graphics2D g, double theta,
+			double feetAngle, Paint bodyPaint, double offsetX, double offsetY) {
+		BufferedImage sprite = g.getDeviceConfiguration().createCompatibleImage(
+				SPRITE_HALF * 2, SPRITE_HALF * 2, Transparency.TRANSLUCENT);
+
+		Graphics2D spriteGraphics = sprite.createGraphics();
+		try {
+			spriteGraphics.translate(SPRITE_HALF + offsetX, SPRITE_HALF + offsetY);
+			drawBody(spriteGraphics, theta, feetAngle, bodyPaint);
+		} finally {
+			spriteGraphics.dispose();
+		}
+		return sprite;
+	}
+
+	// Draw DotEater at (0,0), facing "theta" and with his feet at "feetAngle"
+	private void drawBody(Graphics2D g, double theta, double feetAngle,
+			Paint bodyPaint) {
+		AffineTransform at = g.getTransform();
+
+		g.rotate(theta);
+
+		g.setPaint(bodyPaint);
+		g.fill(mBody);
+
+		drawFoot(g, mFootFrontLeft, -feetAngle);
+		drawFoot(g, mFootFrontRight, feetAngle);
+		drawFoot(g, mFootBackLeft, -((Math.PI / 2) + feetAngle));
+		drawFoot(g, mFootBackRight, (Math.PI / 2) + feetAngle);
+
+		g.setPaint(PAINT_EYE);
+		g.fill(mEyeLeft);
+		g.fill(mEyeRight);
+
+		g.setTransform(at);
+	}
+
+	// Draw a foot turned by "theta" about where it joins him
+	private void drawFoot(Graphics2D g,
+			Rectangle2D.Double foot, double theta) {
+		AffineTransform at = g.getTransform();
+
+		g.rotate(theta, foot.getX(), foot.getCenterY());
+		g.fill(foot);
+
+		g.setTransform(at);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+//The dots drawn once into an image, which is then drawn as a whole. The image
+//is only redrawn when the dots are placed again; eaten dots are erased from
+//it one cell at a time. Only used by whoever draws, never by the game itself.
+public class DotLayer {
+	// The image
+	private BufferedImage mLayer;
+	// How much the image is shrunk compared to the area (1 if it isn't), to
+	// match how it's shown. A huge arena is never drawn at full size.
+	private double mLayerScale;
+	// Which placement of the dots the image shows
+	private DotCollection.Placement mLayerPlacement;
+	// How many eaten dots have been erased from it
+	private int mLayerEatenCount;
+	// The cell being erased; reused for each one
+	private Rectangle mLayerCell = new Rectangle();
+
+	// Draw the dots of "placement" that are still there, once "eatenCount" of
+	// them have been eaten. The image is made at the scale "g" draws at, then
+	// drawn unscaled.
+	public void draw(Graphics2D g, DotCollection.Placement placement,
+			int eatenCount) {
+		AffineTransform at = g.getTransform();
+		double scale = at.getScaleX();
+
+		if (mLayer == null || mLayerScale != scale) {
+			mLayer = g.getDeviceConfiguration().createCompatibleImage(
+					(int) Math.ceil(placement.getAreaWidth() * scale),
+					(int) Math.ceil(placement.getAreaHeight() * scale),
+					Transparency.TRANSLUCENT);
+			mLayerScale = scale;
+			rebuild(placement);
+		} else if (mLayerPlacement != placement) {
+			rebuild(placement);
+		}
+		eraseEaten(eatenCount);
+
+		g.setTransform(AffineTransform.getTranslateInstance(
+				at.getTranslateX(), at.getTranslateY()));
+		g.drawImage(mLayer, 0, 0, null);
+		g.setTransform(at);
+	}
+
+	// Draw all dots of "placement" into the image, from scratch
+	private void rebuild(DotCollection.Placement placement) {
+		// Any eaten ones are erased afterwards
+		mLayerPlacement = placement;
+		mLayerEatenCount = 0;
+
+		Graphics2D layerGraphics = mLayer.createGraphics();
+		try {
+			layerGraphics.setComposite(AlphaComposite.Clear);
+			layerGraphics.fillRect(0, 0, mLayer.getWidth(), mLayer.getHeight());
+			layerGraphics.setComposite(AlphaComposite.SrcOver);
+			layerGraphics.scale(mLayerScale, mLayerScale);
+			placement.drawDots(layerGraphics);
+		} finally {
+			layerGraphics.dispose();
+		}
+	}
+
+	// Erase the cells of the dots eaten since the image was last updated
+	private void eraseEaten(int eatenCount) {
+		if (mLayerEatenCount >= eatenCount) {
+			return;
+		}
+
+		Graphics2D layerGraphics = mLayer.createGraphics();
+		try {
+			layerGraphics.setComposite(AlphaComposite.Clear);
+			layerGraphics.scale(mLayerScale, mLayerScale);
+			for (int e = mLayerEatenCount; e < eatenCount; e++) {
+				layerGraphics.fill(mLayerPlacement.getEatenCellBounds(e, mLayerCell));
+			}
+		} finally {
+			layerGraphics.dispose();
+		}
+		mLayerEatenCount = eatenCount;
+	}
+}
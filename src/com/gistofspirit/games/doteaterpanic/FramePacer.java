@@ -0,0 +1,105 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.concurrent.locks.LockSupport;
+
+//Waits until a given moment, for the game loop to keep its beat. Parking
+//(like sleeping) only wakes up roughly on time, and sometimes well after, so
+//it parks until a little before the moment and spins for the rest. How
+//early to stop parking follows how late parking has been waking up lately.
+//Spinning keeps a CPU busy, so it can be turned off to save power (or to
+//leave the CPU to others); then it just parks and lives with being late.
+public class FramePacer {
+	// How early to stop parking at first, and at least and at most, in
+	// nanoseconds
+	private static final long SPIN_MARGIN_INITIAL = 1000000l;
+	private static final long SPIN_MARGIN_MIN = 100000l;
+	private static final long SPIN_MARGIN_MAX = 4000000l;
+	// How quickly the margin shrinks back after a late wake-up: by this
+	// fraction of itself each time parking was on time
+	private static final int SPIN_MARGIN_DECAY = 64;
+
+	// Whether to spin at the end, rather than only park
+	private volatile boolean mIsSpinning;
+	// How early to stop parking, in nanoseconds
+	private long mSpinMargin = SPIN_MARGIN_INITIAL;
+
+	// Constructor. Spins unless there's only one CPU, where spinning would
+	// only get in the way of the threads that are meant to be running.
+	public FramePacer() {
+		this(Runtime.getRuntime().availableProcessors() > 1);
+	}
+
+	// Constructor, choosing whether to spin
+	public FramePacer(boolean spinning) {
+		mIsSpinning = spinning;
+	}
+
+	// Spin at the end of each wait (true) or only park (false, to save CPU)
+	public void setSpinning(boolean spinning) {
+		mIsSpinning = spinning;
+	}
+
+	public boolean isSpinning() {
+		return mIsSpinning;
+	}
+
+	// How early parking stops, as things stand, in nanoseconds
+	public long getSpinMargin() {
+		return mSpinMargin;
+	}
+
+	// Wait until System.nanoTime() reaches "deadline" and return the time
+	// it was when the wait ended
+	public long waitUntil(long deadline) {
+		boolean spinning = mIsSpinning;
+		long parkUntil = spinning ? deadline - mSpinMargin : deadline;
+
+		long now = System.nanoTime();
+		if (now < parkUntil) {
+			// Parking may end early for no reason, so park again if it does
+			do {
+				LockSupport.parkNanos(this, parkUntil - now);
+				now = System.nanoTime();
+			} while (now < parkUntil);
+
+			if (spinning) {
+				adjustSpinMargin(now - parkUntil);
+			}
+		}
+
+		while (now < deadline) {
+			Thread.onSpinWait();
+			now = System.nanoTime();
+		}
+		return now;
+	}
+
+	// Stop parking earlier if it just woke up later than the margin allows
+	// for, or a little later if it didn't
+	private void adjustSpinMargin(long late) {
+		if (late > mSpinMargin) {
+			mSpinMargin = Math.min(SPIN_MARGIN_MAX, late);
+		} else {
+			mSpinMargin = Math.max(SPIN_MARGIN_MIN,
+					mSpinMargin - mSpinMargin / SPIN_MARGIN_DECAY);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.io.PrintStream;
+
+//How long each part of a tick and a frame took. The world's phases and the
+//loop's are recorded on the loop's thread; painting's (and key to frame) on
+//whichever thread paints.
+public class FrameTimings {
+	// The phases, by the number they're recorded under
+	// A whole tick
+	public static final int TICK = 0;
+	// Moving DotEater and the walls
+	public static final int MOVE = 1;
+	// Checking for dots eaten
+	public static final int DOT_COLLISIONS = 2;
+	// Checking whether DotEater touched a wall or an edge
+	public static final int LOSE_COLLISIONS = 3;
+	// The loop asking for a repaint (or drawing the frame itself)
+	public static final int FRAME = 4;
+	// A whole paint
+	public static final int PAINT = 5;
+	// Drawing the status bar
+	public static final int DRAW_BAR = 6;
+	// Drawing DotEater and the walls
+	public static final int DRAW_ENTITIES = 7;
+	// Drawing the dots
+	public static final int DRAW_DOTS = 8;
+	// From a key being pressed to the first frame that shows its tick in
+	// full (interpolating from that tick, not towards it)
+	public static final int KEY_TO_FRAME = 9;
+	// How late the loop got to each tick or frame, whether it waited for it
+	// or was still busy when it was due
+	public static final int WAKE_LATE = 10;
+	private static final String[] NAMES = { "Tick", "  move",
+			"  dot collisions", "  lose collisions", "Frame request", "Paint",
+			"  status bar", "  DotEater and walls", "  dots", "Key to frame",
+			"Wake-up lateness" };
+
+	private final LatencyHistogram[] mHistograms =
+			new LatencyHistogram[NAMES.length];
+
+	// Constructor
+	public FrameTimings() {
+		for (int i = 0; i < mHistograms.length; i++) {
+			mHistograms[i] = new LatencyHistogram();
+		}
+	}
+
+	// Count a phase that started at "start" (from System.nanoTime) and
+	// return the time it ended, so the next phase can start from there
+	public long record(int phase, long start) {
+		long now = System.nanoTime();
+		mHistograms[phase].record(now - start);
+		return now;
+	}
+
+	// Return the times for a phase
+	public LatencyHistogram get(int phase) {
+		return mHistograms[phase];
+	}
+
+	// Print every phase that happened at least once
+	public void print(PrintStream out) {
+		for (int i = 0; i < mHistograms.length; i++) {
+			if (mHistograms[i].getCount() > 0) {
+				out.println(String.format("%-22s %s", NAMES[i], mHistograms[i]));
+			}
+		}
+	}
+}
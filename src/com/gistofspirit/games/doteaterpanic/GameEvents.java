@@ -0,0 +1,120 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Java Flight Recorder events for what happens in the game, so hitches can be
+//lined up with GC, safepoints and the like in the usual JFR tools. Record
+//with e.g.
+//  java -XX:StartFlightRecording=filename=game.jfr -jar doteaterpanic.jar
+//When nothing's recording, the events are never written and cost next to
+//nothing. None of them need stack traces.
+public class GameEvents {
+	private static final String CATEGORY = "Dot Eater Panic";
+
+	private GameEvents() {
+	}
+
+	// One tick of the world; its duration is how long the tick took
+	@Name("com.gistofspirit.doteaterpanic.Tick")
+	@Label("Tick")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class TickEvent extends Event {
+		@Label("Tick")
+		long tick;
+		@Label("Delta")
+		@Description("How far the world moved on, in ticks of 1/60 s")
+		double delta;
+		@Label("Walls")
+		int walls;
+		@Label("Dots Remaining")
+		int dotsRemaining;
+		@Label("Game On")
+		boolean gameOn;
+	}
+
+	// DotEater ate a dot
+	@Name("com.gistofspirit.doteaterpanic.DotEaten")
+	@Label("Dot Eaten")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class DotEatenEvent extends Event {
+		@Label("Tick")
+		long tick;
+		@Label("Status")
+		String status;
+		@Label("Score")
+		int score;
+		@Label("Dots Remaining")
+		int dotsRemaining;
+	}
+
+	// DotEater finished dying
+	@Name("com.gistofspirit.doteaterpanic.DotEaterDie")
+	@Label("DotEater Died")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class DieEvent extends Event {
+		@Label("Tick")
+		long tick;
+		@Label("Lives Left")
+		int lives;
+		@Label("Score")
+		int score;
+	}
+
+	// DotEater and the walls went fast or slow
+	@Name("com.gistofspirit.doteaterpanic.SpeedChange")
+	@Label("Speed Change")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class SpeedChangeEvent extends Event {
+		@Label("Tick")
+		long tick;
+		@Label("Fast")
+		boolean fast;
+		@Label("Walls")
+		int walls;
+	}
+
+	// A frame was drawn and shown; its duration is how long that took
+	@Name("com.gistofspirit.doteaterpanic.FramePresented")
+	@Label("Frame Presented")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public static class FrameEvent extends Event {
+		@Label("Mode")
+		@Description("active, full or dirty")
+		String mode;
+		@Label("Alpha")
+		@Description("How far between the last tick and the next one")
+		double alpha;
+		@Label("Walls")
+		int walls;
+		@Label("Dots Remaining")
+		int dotsRemaining;
+	}
+}
@@ -0,0 +1,470 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+//The game's state and rules, without anything to do with the screen. The
+//window (or anything else, e.g. a bot) drives it by calling step(). All of
+//its randomness comes from one generator, so the same seed and the same
+//inputs on the same ticks always play out the same way (see Replay).
+public class GameWorld implements DotEater.DieListener,
+		DotCollection.EatListener {
+	// How many ticks per second make delta==1
+	public static final int BASE_TICK_RATE = 60;
+	// The directions walls go in, in turn
+	private static final Direction[] WALL_DIRECTIONS =
+			{ Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP };
+	// How long DotEater remains fast, in ticks of delta==1
+	private static final double DURATION_FAST = 5 * BASE_TICK_RATE; // 5 seconds
+	// Scoring system
+	// Score you gain for eating a dot
+	private static final int SCORE_DOT = 50;
+	// Score you gain for eating a pill
+	private static final int SCORE_PILL = 100;
+	// Score you lose if you're hit
+	private static final int SCORE_LOSE = 200;
+	// Score you gain if you eat all dots
+	private static final int SCORE_WIN = 150;
+	// Lives you gain if you eat all dots
+	private static final int LIVES_BONUS = 1;
+	// Lives you begin the game with
+	private static final int INIT_LIVES = 3;
+
+	// Very simple listener implementation to tell whoever runs the game
+	// that there are no more lives left
+	public abstract interface GameOverListener {
+		abstract void onGameOver();
+	}
+
+	// Who listens
+	private GameOverListener gameOverListener;
+
+	// Assign a listener
+	public void setGameOverListener(GameOverListener listener) {
+		gameOverListener = listener;
+	}
+
+	// Time the phases of each tick from now on
+	public void setTimings(FrameTimings timings) {
+		mTimings = timings;
+	}
+
+	// Record every start and change of direction from now on in "replay"
+	public void setReplay(Replay replay) {
+		mReplay = replay;
+	}
+
+	// How big the arena is and how much is in it
+	private ArenaProfile mProfile;
+	// Where all the randomness comes from, and what it started from
+	private Random mRandom;
+	private long mSeed;
+	// How many ticks the world has moved on by
+	private long mTicks;
+	// Where to record inputs, if anywhere
+	private Replay mReplay;
+	// Where to record how long each phase of a tick takes, if anywhere
+	private FrameTimings mTimings;
+	// Playing area's size
+	private int mAreaWidth;
+	private int mAreaHeight;
+
+	// Simulated time, in ticks of delta==1
+	private double mTime;
+	// Things due to happen later in simulated time
+	private final TimerWheel mTimers = new TimerWheel();
+	// Slows things down again once a pill wears off
+	private final TimerWheel.Timer mPillTimer = new TimerWheel.Timer() {
+		@Override
+		protected void onExpire() {
+			goSlow();
+		}
+	};
+
+	// An instance of our hero
+	private DotEater mDotEater;
+	// An array of walls
+	private Wall[] mWalls;
+	// Finds the walls near DotEater
+	private WallIndex mWallIndex;
+	// The collection of dots on the screen
+	private DotCollection mDotCollection;
+	// Current score
+	private int mScore;
+	// Current lives
+	private int mLives;
+	// Whether the simulation should stop running
+	private volatile boolean mIsPaused;
+	// Whether the game is controllable right now
+	private volatile boolean mIsGameOn;
+	// Whether all lives have been lost
+	private volatile boolean mIsGameOver;
+	// DotEater's area now and at the previous tick; reused on every check
+	private Rectangle2D.Double mDotEaterArea = new Rectangle2D.Double();
+	private Rectangle2D.Double mDotEaterPrevArea = new Rectangle2D.Double();
+
+	// Constructor, for the classic game
+	public GameWorld() {
+		this(ArenaProfile.CLASSIC);
+	}
+
+	// Constructor for an arena of any size, with a random seed
+	public GameWorld(ArenaProfile profile) {
+		this(profile, new Random().nextLong());
+	}
+
+	// Constructor for an arena of any size, played out from the given seed
+	public GameWorld(ArenaProfile profile, long seed) {
+		mProfile = profile;
+		mSeed = seed;
+		mRandom = new Random(seed);
+		mAreaWidth = profile.getAreaWidth();
+		mAreaHeight = profile.getAreaHeight();
+
+		// Initially place DotEater at the centre
+		mDotEater = new DotEater(mAreaWidth / 2, mAreaHeight / 2, Direction.RIGHT);
+		// Create the walls, going each of the four ways in turn. The first
+		// goes left-to-right and the second up-to-down.
+		int wallCount = profile.getWallCount();
+		mWalls = new Wall[wallCount];
+		for (int i = 0; i < wallCount; i++) {
+			Direction dir = WALL_DIRECTIONS[i % WALL_DIRECTIONS.length];
+			if (dir == Direction.RIGHT || dir == Direction.LEFT) {
+				mWalls[i] = new Wall(dir, mAreaWidth, 0, mAreaHeight, mRandom);
+			} else {
+				mWalls[i] = new Wall(dir, mAreaHeight, 0, mAreaWidth, mRandom);
+			}
+		}
+		mWallIndex = new WallIndex(mWalls);
+		// Create the collection of dots
+		mDotCollection = new DotCollection(mAreaWidth, mAreaHeight,
+				profile.getDotColumns(), profile.getDotRows(),
+				profile.getMaxPills(), mRandom);
+
+		// Initialise score and lives
+		mScore = 0;
+		mLives = INIT_LIVES;
+		// Everything is stopped at first
+		mIsPaused = true;
+		mIsGameOn = false;
+		mIsGameOver = false;
+
+		// Set the listeners, for DotEater and dots.
+		mDotEater.setDieListener(this);
+		mDotCollection.setEatenListener(this);
+	}
+
+	// Start a new round (after DotEater dies)
+	private void initRound() {
+		mIsPaused = true;
+		mIsGameOn = false;
+		mDotEater.reset();
+		for (Wall w : mWalls) {
+			w.reset();
+		}
+		mWallIndex.update();
+		goSlow();
+	}
+
+	// Start a new game (after DotEater eats all dots)
+	private void initGame() {
+		mDotCollection.init();
+		initRound();
+	}
+
+	// Let the simulation run and DotEater be controlled
+	public void start() {
+		if (!mIsGameOver) {
+			mIsPaused = false;
+			mIsGameOn = true;
+			if (mReplay != null) {
+				// Before the next tick
+				mReplay.recordStart(mTicks);
+			}
+		}
+	}
+
+	// Advance the game by one tick. "input" is the direction DotEater should
+	// face, or null to keep the current one. Ideally delta==1.
+	public void step(Direction input, double delta) {
+		if (mIsPaused) {
+			return;
+		}
+		GameEvents.TickEvent event = new GameEvents.TickEvent();
+		event.begin();
+
+		mTicks++;
+		mTime += delta;
+
+		// Remember where everything was, so it can be drawn in between ticks
+		mDotEater.savePosition();
+		for (Wall w : mWalls) {
+			w.savePosition();
+		}
+
+		// If DotEater is controllable, set his direction
+		if (mIsGameOn && input != null) {
+			if (mReplay != null && input != mDotEater.getDirection()) {
+				// During this tick
+				mReplay.recordDirection(mTicks - 1, input);
+			}
+			mDotEater.setDirection(input);
+		}
+
+		// Run whatever is due by now, such as a pill wearing off
+		mTimers.advance(mTime);
+
+		// Move DotEater and the walls based on the delta
+		long time = startTiming();
+		mDotEater.move(delta);
+		if (mIsGameOn) {
+			for (Wall w : mWalls) {
+				w.move(delta);
+			}
+			mWallIndex.update();
+		}
+		time = recordTiming(FrameTimings.MOVE, time);
+
+		// Check for collisions with dots
+		mDotCollection.checkCollisions();
+		time = recordTiming(FrameTimings.DOT_COLLISIONS, time);
+		// Check for losing condition
+		update();
+		recordTiming(FrameTimings.LOSE_COLLISIONS, time);
+
+		if (event.shouldCommit()) {
+			event.tick = mTicks;
+			event.delta = delta;
+			event.walls = mWalls.length;
+			event.dotsRemaining = mDotCollection.getDotsRemaining();
+			event.gameOn = mIsGameOn;
+			event.commit();
+		}
+	}
+
+	// When a phase starts, if phases are being timed
+	private long startTiming() {
+		return mTimings != null ? System.nanoTime() : 0;
+	}
+
+	// Count a phase that started at "start" and return when it ended, if
+	// phases are being timed
+	private long recordTiming(int phase, long start) {
+		return mTimings != null ? mTimings.record(phase, start) : 0;
+	}
+
+	// Turn controls off and play DotEater's dying animation
+	private void stopGame() {
+		mIsGameOn = false;
+		mDotEater.startDying();
+	}
+
+	// Check if the game should stop
+	private void update() {
+		if (checkLoseCollisions()) {
+			stopGame();
+		}
+	}
+
+	// You lose if DotEater touches a wall or the playing area's edges. Walls
+	// are checked all the way from where he and they were at the previous
+	// tick, so a big delta can't carry him through one.
+	boolean checkLoseCollisions() {
+		// Think of DotEater as a rectangle for this
+		Rectangle2D pacArea = mDotEater.getBounds2D(mDotEaterArea);
+		if ((pacArea.getX() <= 0) || (pacArea.getY() <= 0)
+				|| (pacArea.getMaxX() >= mAreaWidth)
+				|| (pacArea.getMaxY() >= mAreaHeight)) {
+			// DotEater touches the playing area's edges
+			return true;
+		}
+		// Did DotEater touch a wall on the way here?
+		return mWallIndex.intersectsAny(
+				mDotEater.getPrevBounds2D(mDotEaterPrevArea), pacArea);
+	}
+
+	// Catch up with walls that were moved from outside (for benchmarks)
+	void updateWallIndex() {
+		mWallIndex.update();
+	}
+
+	// What to do when DotEater dies
+	@Override
+	public void onDotEaterDie() {
+		// Subtract from the score
+		subtractScore(SCORE_LOSE);
+		GameEvents.DieEvent event = new GameEvents.DieEvent();
+		if (event.shouldCommit()) {
+			event.tick = mTicks;
+			// One is about to be used up, if there's one left
+			event.lives = Math.max(0, mLives - 1);
+			event.score = mScore;
+			event.commit();
+		}
+		if (mLives > 0) {
+			// You've got more lives; start a new round
+			mLives--;
+			initRound();
+		} else {
+			// No more lives. Game over.
+			mIsPaused = true;
+			mIsGameOver = true;
+			if (gameOverListener != null) {
+				gameOverListener.onGameOver();
+			}
+		}
+	}
+
+	// DotEater has eaten a dot. Add score depending on its size.
+	@Override
+	public void onDotEaten(DotStatus status) {
+		switch (status) {
+			case NORMAL:
+				mScore += SCORE_DOT;
+				break;
+			case PILL:
+				mScore += SCORE_PILL;
+				goFast();
+				break;
+			default:
+				break;
+		}
+
+		GameEvents.DotEatenEvent event = new GameEvents.DotEatenEvent();
+		if (event.shouldCommit()) {
+			event.tick = mTicks;
+			event.status = status.name();
+			event.score = mScore;
+			event.dotsRemaining = mDotCollection.getDotsRemaining();
+			event.commit();
+		}
+	}
+
+	// You won! Start a new game.
+	@Override
+	public void onAllDotsEaten() {
+		mScore += SCORE_WIN;
+		mLives += LIVES_BONUS;
+		initGame();
+	}
+
+	// Tell the dot collection where DotEater was and where he is now
+	@Override
+	public void getDotEaterLocation(Circle from, Circle to) {
+		mDotEater.getPrevCircle(from);
+		mDotEater.getCircle(to);
+	}
+
+	// Make DotEater and walls go fast
+	private void goFast() {
+		speedChanging(true);
+		mDotEater.goFast();
+		for (Wall w : mWalls) {
+			w.goFast();
+		}
+		// Slow down again a while from now (or later, if already fast)
+		mTimers.schedule(mPillTimer, mTime + DURATION_FAST);
+	}
+
+	// Make DotEater and walls go slow
+	private void goSlow() {
+		mTimers.cancel(mPillTimer);
+		speedChanging(false);
+		mDotEater.goSlow();
+		for (Wall w : mWalls) {
+			w.goSlow();
+		}
+	}
+
+	// Note when things are about to go fast or slow, if they weren't already
+	private void speedChanging(boolean fast) {
+		if (mDotEater.isFast() != fast) {
+			GameEvents.SpeedChangeEvent event = new GameEvents.SpeedChangeEvent();
+			if (event.shouldCommit()) {
+				event.tick = mTicks;
+				event.fast = fast;
+				event.walls = mWalls.length;
+				event.commit();
+			}
+		}
+	}
+
+	// Subtract from the score but don't allow negatives
+	private void subtractScore(int scoreToSubtract) {
+		mScore -= scoreToSubtract;
+		if (mScore < 0) {
+			mScore = 0;
+		}
+	}
+
+	// The following functions return values
+	public ArenaProfile getProfile() {
+		return mProfile;
+	}
+
+	public long getSeed() {
+		return mSeed;
+	}
+
+	public long getTicks() {
+		return mTicks;
+	}
+
+	public int getAreaWidth() {
+		return mAreaWidth;
+	}
+
+	public int getAreaHeight() {
+		return mAreaHeight;
+	}
+
+	public DotEater getDotEater() {
+		return mDotEater;
+	}
+
+	public Wall[] getWalls() {
+		return mWalls;
+	}
+
+	public DotCollection getDotCollection() {
+		return mDotCollection;
+	}
+
+	public int getScore() {
+		return mScore;
+	}
+
+	public int getLives() {
+		return mLives;
+	}
+
+	public boolean isPaused() {
+		return mIsPaused;
+	}
+
+	public boolean isGameOn() {
+		return mIsGameOn;
+	}
+
+	public boolean isGameOver() {
+		return mIsGameOver;
+	}
+}
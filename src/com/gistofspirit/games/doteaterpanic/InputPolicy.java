@@ -0,0 +1,35 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+//Something that plays the game instead of a person, e.g. a bot being
+//evaluated with BatchRunner. Each game gets its own, so it can keep whatever
+//state it likes.
+public interface InputPolicy {
+	// Which way DotEater should face on the next tick, or null to leave him
+	// as he is
+	abstract Direction nextInput(GameWorld world);
+
+	// Makes a policy for each game
+	public abstract interface Factory {
+		// "seed" is the game's own seed, for policies that want randomness
+		// of their own
+		abstract InputPolicy create(long seed);
+	}
+}
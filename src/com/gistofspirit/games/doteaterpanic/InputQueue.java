@@ -0,0 +1,88 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Directions pressed, waiting for the game loop, each with the time it was
+//pressed. One thread (Swing's) adds to it and one (the loop) takes from it;
+//neither ever waits for the other or locks. It's a fixed ring of slots: the
+//adder only moves the tail and the taker only moves the head, and each
+//publishes its move only after it's done with the slot.
+public class InputQueue {
+	// How many inputs can wait at once. Must be a power of two.
+	private static final int CAPACITY = 16;
+	private static final int MASK = CAPACITY - 1;
+
+	private final Direction[] mDirections = new Direction[CAPACITY];
+	private final long[] mTimes = new long[CAPACITY];
+	// How many inputs have ever been taken, and ever been added
+	private final AtomicLong mHead = new AtomicLong();
+	private final AtomicLong mTail = new AtomicLong();
+	// The taker's and the adder's own copies, so each only reads the
+	// other's when it has to
+	private long mHeadCache;
+	private long mTailCache;
+
+	// Add a direction pressed at "time" (from System.nanoTime). Returns
+	// false, dropping it, if the loop has fallen so far behind that the queue
+	// is full. Only call from the one adding thread.
+	public boolean offer(Direction direction, long time) {
+		long tail = mTail.get();
+		if (tail - mHeadCache >= CAPACITY) {
+			mHeadCache = mHead.get();
+			if (tail - mHeadCache >= CAPACITY) {
+				return false;
+			}
+		}
+		int slot = (int) tail & MASK;
+		mDirections[slot] = direction;
+		mTimes[slot] = time;
+		mTail.lazySet(tail + 1);
+		return true;
+	}
+
+	// Whether anything is waiting. Only call from the one taking thread,
+	// like the rest below.
+	public boolean isEmpty() {
+		long head = mHead.get();
+		if (head < mTailCache) {
+			return false;
+		}
+		mTailCache = mTail.get();
+		return head >= mTailCache;
+	}
+
+	// The oldest direction waiting and when it was pressed. Only valid when
+	// the queue isn't empty.
+	public Direction peekDirection() {
+		return mDirections[(int) mHead.get() & MASK];
+	}
+
+	public long peekTime() {
+		return mTimes[(int) mHead.get() & MASK];
+	}
+
+	// Done with the oldest direction waiting
+	public void remove() {
+		long head = mHead.get();
+		mDirections[(int) head & MASK] = null;
+		mHead.lazySet(head + 1);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.concurrent.TimeUnit;
+
+//Counts how long something took, many times over, in buckets that get wider
+//as the times get longer (16 per doubling, so each is within about 6% of
+//the real time). Recording is just an array increment, so it can go in the
+//middle of the game loop. Times are in nanoseconds.
+//
+//One thread should record; others can read while it does, but may see
+//slightly out of date numbers.
+public class LatencyHistogram {
+	// Buckets per doubling, as a power of two
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	// Enough buckets for any positive long
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final long[] mCounts = new long[BUCKETS];
+	private long mCount;
+	private long mTotal;
+	private long mMax;
+
+	// Count one time
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		mCounts[getBucket(nanos)]++;
+		mCount++;
+		mTotal += nanos;
+		if (nanos > mMax) {
+			mMax = nanos;
+		}
+	}
+
+	// Forget everything counted so far
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			mCounts[i] = 0;
+		}
+		mCount = 0;
+		mTotal = 0;
+		mMax = 0;
+	}
+
+	// The time "fraction" (0 to 1) of the way up all the times counted, e.g.
+	// 0.99 for the 99th percentile. It's the top of the bucket it falls in,
+	// so it may be a little high, but never more than the longest time.
+	public long getPercentile(double fraction) {
+		long count = mCount;
+		if (count == 0) {
+			return 0;
+		}
+		long wanted = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += mCounts[i];
+			if (seen >= wanted) {
+				return Math.min(getBucketTop(i), mMax);
+			}
+		}
+		return mMax;
+	}
+
+	// Which bucket a time goes in. Up to SUB_BUCKETS * 2 each time has its
+	// own; after that each doubling is split into SUB_BUCKETS.
+	private static int getBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	// The longest time that goes in a bucket
+	private static long getBucketTop(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	// The following functions return values
+	public long getCount() {
+		return mCount;
+	}
+
+	public long getMax() {
+		return mMax;
+	}
+
+	public double getMean() {
+		long count = mCount;
+		return count == 0 ? 0 : mTotal / (double) count;
+	}
+
+	// p50, p99 and max in milliseconds, e.g. for printing
+	@Override
+	public String toString() {
+		return String.format("p50 %.3f, p99 %.3f, max %.3f ms (%d)",
+				toMillis(getPercentile(0.5)), toMillis(getPercentile(0.99)),
+				toMillis(getMax()), getCount());
+	}
+
+	// Nanoseconds as fractional milliseconds
+	public static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -19,7 +19,11 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package com.gistofspirit.games.doteaterpanic;
 
 import java.awt.Toolkit;
+import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
@@ -31,28 +35,137 @@ public class MainWindow extends JFrame {
 	// Main function
 	public static void main(String[] args)
 	{
+		// Read the options
+		int tickRate = PlayingArea.DEFAULT_TICK_RATE;
+		int frameRate = PlayingArea.DEFAULT_FRAME_RATE;
+		boolean activeRendering = false;
+		boolean fullRedraw = false;
+		boolean cpuSaver = false;
+		ArenaProfile profile = ArenaProfile.CLASSIC;
+		long seed = new Random().nextLong();
+		File recordFile = null;
+		File replayFile = null;
+		for (String arg : args) {
+			if (arg.startsWith(ARG_SEED)) {
+				seed = Long.parseLong(arg.substring(ARG_SEED.length()));
+			} else if (arg.startsWith(ARG_RECORD)) {
+				recordFile = new File(arg.substring(ARG_RECORD.length()));
+			} else if (arg.startsWith(ARG_REPLAY)) {
+				replayFile = new File(arg.substring(ARG_REPLAY.length()));
+			} else if (arg.startsWith(ARG_TICK_RATE)) {
+				tickRate = Integer.parseInt(arg.substring(ARG_TICK_RATE.length()));
+			} else if (arg.startsWith(ARG_FRAME_RATE)) {
+				frameRate = Integer.parseInt(arg.substring(ARG_FRAME_RATE.length()));
+			} else if (arg.startsWith(ARG_PROFILE)) {
+				String name = arg.substring(ARG_PROFILE.length());
+				try {
+					profile = ArenaProfile.get(name);
+				} catch (IOException | IllegalArgumentException ex) {
+					System.err.println("Can't use profile " + name + ": "
+							+ ex.getMessage());
+					return;
+				}
+			} else if (arg.equals(ARG_ACTIVE_RENDERING)) {
+				activeRendering = true;
+			} else if (arg.equals(ARG_FULL_REDRAW)) {
+				fullRedraw = true;
+			} else if (arg.equals(ARG_CPU_SAVER)) {
+				cpuSaver = true;
+			} else {
+				System.err.println("Unknown option: " + arg);
+			}
+		}
+		if (replayFile != null) {
+			// Just play it back; no window needed
+			playReplay(replayFile);
+			return;
+		}
+		final int finalTickRate = tickRate;
+		final int finalFrameRate = frameRate;
+		final boolean finalActiveRendering = activeRendering;
+		final boolean finalFullRedraw = fullRedraw;
+		final boolean finalCpuSaver = cpuSaver;
+		final ArenaProfile finalProfile = profile;
+		final long finalSeed = seed;
+		final File finalRecordFile = recordFile;
+
 		// Simply show the window
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
-				MainWindow mw = new MainWindow();
+				MainWindow mw = new MainWindow(finalTickRate, finalProfile,
+						finalSeed);
+				mw.getPlayingArea().setFrameRate(finalFrameRate);
+				mw.getPlayingArea().setDirtyRepainting(!finalFullRedraw);
+				if (finalCpuSaver) {
+					mw.getPlayingArea().setSpinning(false);
+				}
+				if (finalRecordFile != null) {
+					mw.getPlayingArea().recordTo(finalRecordFile);
+				}
 				mw.setVisible(true);
+				if (finalActiveRendering) {
+					mw.startActiveRendering();
+				}
 			}
 		});
 	}
 
 	private static final String WIN_TITLE = "Dot Eater Panic";
+	// Command line option for how many times a second the game moves on
+	private static final String ARG_TICK_RATE = "--tick-rate=";
+	// Command line option for how many frames a second are drawn
+	private static final String ARG_FRAME_RATE = "--frame-rate=";
+	// Command line option to draw from the game loop instead of repainting
+	private static final String ARG_ACTIVE_RENDERING = "--active-rendering";
+	// Command line option to repaint everything each frame, rather than
+	// only what changed
+	private static final String ARG_FULL_REDRAW = "--full-redraw";
+	// Command line option to only sleep between frames, never spin, to save
+	// CPU (and battery) at the cost of less even frames
+	private static final String ARG_CPU_SAVER = "--cpu-saver";
+	// Command line option for the arena: a built-in profile's name or a
+	// profile file
+	private static final String ARG_PROFILE = "--profile=";
+	// Command line option for the seed the game's randomness starts from
+	private static final String ARG_SEED = "--seed=";
+	// Command line option to record the game to a file
+	private static final String ARG_RECORD = "--record=";
+	// Command line option to play a recorded game back, without a window,
+	// and check it ends the same way
+	private static final String ARG_REPLAY = "--replay=";
+
+	// The playing area
+	private PlayingArea mPlayingArea;
 
 	// Constructor
 	public MainWindow() {
+		this(PlayingArea.DEFAULT_TICK_RATE, ArenaProfile.CLASSIC);
+	}
+
+	// Constructor with a custom number of ticks per second and arena
+	public MainWindow(int tickRate, ArenaProfile profile) {
+		this(tickRate, profile, new Random().nextLong());
+	}
+
+	// Constructor with a custom number of ticks per second, arena and seed
+	public MainWindow(int tickRate, ArenaProfile profile, long seed) {
 		setTitle(WIN_TITLE);
 		setResizable(false);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 
 		// Add the playing area and give it focus
-		PlayingArea pa = new PlayingArea();
-		pa.setFocusable(true);
-		add(pa);
+		mPlayingArea = new PlayingArea(tickRate, profile, seed);
+		mPlayingArea.setFocusable(true);
+		add(mPlayingArea);
+
+		// Stop the game loop before the window goes
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				mPlayingArea.stopLoop();
+			}
+		});
 
 		// We want the size to be determined by the playing area.
 		// "pack" sizes the window based on it.
@@ -61,6 +174,55 @@ public class MainWindow extends JFrame {
 		setLocationRelativeTo(null);
 	}
 
+	// Let the game loop draw frames itself, through a canvas's buffers. The
+	// window must already be showing. If the buffers can't be made, Swing
+	// carries on doing the drawing.
+	public void startActiveRendering() {
+		try {
+			mPlayingArea.startActiveRendering();
+		} catch (IllegalStateException | IllegalArgumentException ex) {
+			System.err.println("Active rendering unavailable: "
+					+ ex.getMessage());
+		}
+	}
+
+	// Play a recorded game back as fast as possible and say whether it ended
+	// the same way
+	private static void playReplay(File file) {
+		Replay replay;
+		try {
+			replay = Replay.load(file);
+		} catch (IOException ex) {
+			// A replay that can't be checked counts as a failed check
+			System.err.println("Can't load replay: " + ex.getMessage());
+			System.exit(1);
+			return;
+		}
+		System.out.println(String.format("Replaying %s, seed %d, %d inputs",
+				replay.getProfile(), replay.getSeed(), replay.getInputCount()));
+
+		long start = System.nanoTime();
+		GameWorld world = replay.play();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%d ticks in %.3f s (%.0f ticks/s)",
+				world.getTicks(), seconds, world.getTicks() / seconds));
+		System.out.println(String.format("Score: %d (recorded: %d)",
+				world.getScore(), replay.getScore()));
+		if (world.getTicks() == replay.getEndTick()
+				&& world.getScore() == replay.getScore()) {
+			System.out.println("Replay matches");
+		} else {
+			System.out.println("Replay does NOT match");
+			System.exit(1);
+		}
+	}
+
+	// Return the playing area
+	public PlayingArea getPlayingArea() {
+		return mPlayingArea;
+	}
+
 	// Tell the window to close
 	public void askToClose() {
 		WindowEvent ev = new WindowEvent(this, WindowEvent.WINDOW_CLOSING);
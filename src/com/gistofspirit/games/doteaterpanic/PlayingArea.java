@@ -18,267 +18,495 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 
 package com.gistofspirit.games.doteaterpanic;
 
+import java.awt.BorderLayout;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JPanel;
 
-//The game's main class.
+//The game's window contents. The game itself happens in GameWorld; this
+//class runs the loop, passes on the keys and draws the world.
 public class PlayingArea extends JPanel implements KeyListener,
-		DotEater.DieListener, DotCollection.EatListener {
+		GameWorld.GameOverListener, ActiveRenderer.Scene {
 	private static final long serialVersionUID = -6927068956073636390L;
 
 	// Messages to print to the user (in a terminal)
 	public static final String EXIT_TEXT_QUIT = "You quit!";
 	public static final String EXIT_TEXT_LOSE = "You lose!";
-	// Playing area's size
-	public static final int AREA_WIDTH = 800;
-	public static final int AREA_HEIGHT = AREA_WIDTH;
+	// The most space the playing area takes on the screen. Bigger arenas are
+	// shrunk to fit.
+	public static final int MAX_VIEW_SIZE = 800;
 	// Status bar's height
 	public static final int BAR_HEIGHT = 30;
 	// Background colour
 	public static final Color COLOUR_BG = Color.BLACK;
-	// Bar's colour
-	private static final Paint PAINT_BAR = Color.WHITE;
-	// How long DotEater remains fast, in nanoseconds
-	private static final long DURATION_FAST = 5000000000l; // 5 seconds
-	// How many columns and rows of dots
-	private static final int DOT_COLUMNS = 8;
-	private static final int DOT_ROWS = 8;
-	// How many dots will be pills
-	// MAX_PILLS <= DOT_COLUMNS * DOT_ROWS
-	private static final int MAX_PILLS = 10;
-	// Scoring system
-	// Score you gain for eating a dot
-	private static final int SCORE_DOT = 50;
-	// Score you gain for eating a pill
-	private static final int SCORE_PILL = 100;
-	// Score you lose if you're hit
-	private static final int SCORE_LOSE = 200;
-	// Score you gain if you eat all dots
-	private static final int SCORE_WIN = 150;
-	// Lives you gain if you eat all dots
-	private static final int LIVES_BONUS = 1;
-	// Lives you begin the game with
-	private static final int INIT_LIVES = 3;
 	// How to draw on-screen messages
-	// Font to use for the score
-	private static final Font FONT_SCORE = new Font("Serif", Font.PLAIN, 24);
-	// Font to use for the lives
-	private static final Font FONT_LIVES = FONT_SCORE;
 	// Font to use for the welcome message
-	private static final Font FONT_WELCOME = FONT_SCORE;
-	// How the score is displayed
-	private static final String FORMAT_SCORE = "Score: %d";
-	// How the lives are displayed
-	private static final String FORMAT_LIVES = "Lives: %d";
+	private static final Font FONT_WELCOME = new Font("Serif", Font.PLAIN, 24);
 	// The welcome message
 	private static final String TEXT_WELCOME = "Press SPACE to start";
-	// Font colour for score
-	private static final Color COLOUR_SCORE = Color.BLACK;
-	// Font colour for lives
-	private static final Color COLOUR_LIVES = COLOUR_SCORE;
 	// Font colour for the welcome message
 	private static final Color COLOUR_WELCOME = Color.CYAN;
-	// Where to draw the welcome message
-	private static final int WELCOME_X = AREA_WIDTH / 2 - 100;
-	private static final int WELCOME_Y = AREA_HEIGHT / 2 + 100;
-
-	// Last time a pill was eaten
-	private long mLastPillTime;
-
-	// Whether the game loop is running
-	private boolean mIsLoopRunning = false;
-
-	// An instance of our hero
-	private DotEater mDotEater;
-	// An array of walls
-	private Wall[] mWalls;
-	// The collection of dots on the screen
-	private DotCollection mDotCollection;
-	// Current score
-	private int mScore;
-	// Current lives
-	private int mLives;
-	// Whether the loop should stop running
-	private boolean mIsPaused;
-	// Whether the game is controllable right now
-	private boolean mIsGameOn;
+	// Where to draw the welcome message, from the centre
+	private static final int WELCOME_X = -100;
+	private static final int WELCOME_Y = 100;
+	// How to show the timing statistics (F3), at the right of the status bar
+	private static final String FORMAT_STATS_FRAMES =
+			"%.0f fps, tick p50 %.2f p99 %.2f, late p99 %.2f ms";
+	private static final String FORMAT_STATS_PAINT =
+			"paint p99 %.2f, key p99 %.2f ms, GC %d in %d ms";
+	// How often the statistics are worked out again, in nanoseconds
+	private static final long STATS_INTERVAL = 1000000000l;
+	// Where to find out about garbage collection
+	private static final List<GarbageCollectorMXBean> GC_BEANS =
+			ManagementFactory.getGarbageCollectorMXBeans();
+
+	// How many times a second the world moves on, by default
+	public static final int DEFAULT_TICK_RATE = GameWorld.BASE_TICK_RATE;
+	// How many frames a second are drawn, by default. Frames come on their
+	// own beat, not the ticks', so they're drawn in between ticks too.
+	public static final int DEFAULT_FRAME_RATE = 60;
+	// The most ticks to run in one go when the loop falls behind. Any more
+	// than that and the world slows down instead.
+	private static final int MAX_CATCH_UP_TICKS = 5;
+	// The game loop thread's name
+	private static final String LOOP_THREAD_NAME = "Game loop";
+	// How long to wait for the loop to finish when stopping it, in
+	// milliseconds
+	private static final long LOOP_STOP_TIMEOUT = 1000;
+
+	// The one thread the game loop runs on, for the whole game. It's started
+	// with the first game and waits, parked, whenever the world is paused.
+	private final Thread mLoopThread;
+	// Whether the loop thread should finish
+	private volatile boolean mLoopStopping;
+	// How many times a second the world moves on
+	private int mTickRate;
+	// How many frames a second are drawn
+	private volatile int mFrameRate = DEFAULT_FRAME_RATE;
+	// What the world looked like when the loop last drew a frame (or
+	// finished). It's only ever replaced whole, so drawing just picks up
+	// the latest one, without locks and whatever the loop is doing.
+	private final AtomicReference<WorldSnapshot> mSnapshot =
+			new AtomicReference<WorldSnapshot>();
+	// What's kept for drawing below is only used by one thread: the loop's
+	// when it draws itself (see mActiveRenderer), Swing's otherwise
+	// The dots, as drawn
+	private final DotLayer mDotLayer = new DotLayer();
+	// DotEater, as drawn
+	private final DotEaterSprites mDotEaterSprites = new DotEaterSprites();
+	// Where each wall is being drawn; reused for each one
+	private final Rectangle2D.Double mWallArea = new Rectangle2D.Double();
+	// The status bar, as drawn
+	private final StatusBar mStatusBar;
+	// If set, the loop draws frames itself instead of asking for repaints
+	private volatile ActiveRenderer mActiveRenderer;
+	// Whether the loop should draw the last frame again, because the canvas
+	// it draws on was covered up
+	private volatile boolean mRedrawPending;
+	// Frames the loop didn't draw on time because it was busy catching up
+	private long mFramesSkipped;
+	// Waits between frames
+	private final FramePacer mPacer = new FramePacer();
+
+	// Whether to repaint only what changed, rather than everything
+	private volatile boolean mDirtyRepainting = true;
+	// Whether the next repaint should be of everything anyway
+	private volatile boolean mFullRepaintNeeded = true;
+	// What the loop last asked to repaint for DotEater (0) and each wall
+	private Rectangle[] mRequestedBounds;
+	// What was last painted for DotEater (0) and each wall
+	private Rectangle[] mPaintedBounds;
+	// Which placement of dots, how many eaten dots, score and lives the loop
+	// last asked to repaint for
+	private int mRequestedGeneration;
+	private int mRequestedEatenCount;
+	private int mRequestedScore;
+	private int mRequestedLives;
+	// Areas being worked out; reused each frame (one for the loop, one for
+	// painting)
+	private Rectangle mRequestBounds = new Rectangle();
+	private Rectangle mPaintBounds = new Rectangle();
+	private Rectangle mPaintClip = new Rectangle();
+	// How many frames were painted and how long it took in total, in
+	// nanoseconds. One for each repainting mode (see MODE_*).
+	private long[] mPaintCount = new long[2];
+	private long[] mPaintTime = new long[2];
+	private static final int MODE_FULL = 0;
+	private static final int MODE_DIRTY = 1;
+	// How long each phase of the ticks and frames took
+	private final FrameTimings mTimings = new FrameTimings();
+	// Whether to show the timing statistics in the status bar
+	private volatile boolean mShowStats;
+	// The statistics' lines, as last worked out by the loop
+	private volatile String[] mStatsLines = { "", "" };
+	// When the statistics were last worked out, and the frame and GC counts
+	// then
+	private long mStatsTime;
+	private long mStatsFrames;
+	private long mStatsGcCount;
+	private long mStatsGcTime;
+	// Which statistics the loop last asked to repaint for
+	private String[] mRequestedStatsLines;
+
+	// The game itself
+	private GameWorld mWorld;
+	// How big the playing area is on the screen
+	private int mViewWidth;
+	private int mViewHeight;
+	// How much the arena is shrunk to fit in that (1 if it isn't)
+	private double mViewScale;
+	// Directions pressed, waiting for the next tick
+	private final InputQueue mInputs = new InputQueue();
+	// When the oldest key applied at the last tick was pressed, or 0 if
+	// there was none (set by the loop)
+	private long mTickInputTime;
+	// When the oldest key of the last tick that had any was pressed, once
+	// frames show that tick in full (set by the loop), and the same for the
+	// last frame shown (set by whoever shows it)
+	private long mAppliedInputTime;
+	private long mShownInputTime;
+	// Whether the world should be started, or the game quit, before the
+	// next tick. Always left to the loop, so they happen between ticks (and
+	// replays see them on the right one).
+	private volatile boolean mPendingStart;
+	private volatile boolean mPendingQuit;
+	// The game being recorded and where to save it, if it is
+	private Replay mReplay;
+	private File mReplayFile;
 	// Whether the welcome message has been dismissed
-	private boolean mShownWelcome;
+	private volatile boolean mShownWelcome;
 	// This ensures "game over" only happens once
 	private boolean mGameOverRun;
 
 	// Constructor
 	public PlayingArea() {
-		setPreferredSize(new Dimension(AREA_WIDTH, AREA_HEIGHT + BAR_HEIGHT));
-		// Initially place DotEater at the centre
-		mDotEater = new DotEater(AREA_WIDTH / 2, AREA_HEIGHT / 2, Direction.RIGHT);
-		// Create two walls. One going left-to-right, the other going up-to-down
-		mWalls = new Wall[2];
-		mWalls[0] = new Wall(Direction.RIGHT, AREA_WIDTH, 0, AREA_HEIGHT);
-		mWalls[1] = new Wall(Direction.DOWN, AREA_HEIGHT, 0, AREA_WIDTH);
-		// Create the collection of dots
-		mDotCollection = new DotCollection(AREA_WIDTH, AREA_HEIGHT,
-				DOT_COLUMNS, DOT_ROWS, MAX_PILLS);
-
-		// Initialise score and lives
-		mScore = 0;
-		mLives = INIT_LIVES;
-		// Everything is stopped at first
-		mIsPaused = true;
-		mIsGameOn = false;
+		this(DEFAULT_TICK_RATE);
+	}
+
+	// Constructor with a custom number of ticks per second
+	public PlayingArea(int tickRate) {
+		this(tickRate, ArenaProfile.CLASSIC);
+	}
+
+	// Constructor with a custom number of ticks per second and arena
+	public PlayingArea(int tickRate, ArenaProfile profile) {
+		this(tickRate, profile, new Random().nextLong());
+	}
+
+	// Constructor with a custom number of ticks per second, arena and seed
+	public PlayingArea(int tickRate, ArenaProfile profile, long seed) {
+		if (tickRate <= 0) {
+			throw new IllegalArgumentException("Tick rate must be positive: "
+					+ tickRate);
+		}
+		mTickRate = tickRate;
+		mWorld = new GameWorld(profile, seed);
+
+		// Shrink the arena if it doesn't fit
+		int areaWidth = mWorld.getAreaWidth();
+		int areaHeight = mWorld.getAreaHeight();
+		mViewScale = Math.min(1.0, MAX_VIEW_SIZE / (double) Math.max(areaWidth, areaHeight));
+		mViewWidth = (int) Math.ceil(areaWidth * mViewScale);
+		mViewHeight = (int) Math.ceil(areaHeight * mViewScale);
+		setPreferredSize(new Dimension(mViewWidth, mViewHeight + BAR_HEIGHT));
+		mStatusBar = new StatusBar(mViewWidth, BAR_HEIGHT);
+
+		// At first, everything needs painting
+		int entities = mWorld.getWalls().length + 1;
+		mRequestedBounds = new Rectangle[entities];
+		mPaintedBounds = new Rectangle[entities];
+		for (int i = 0; i < entities; i++) {
+			mRequestedBounds[i] = new Rectangle(0, 0, mViewWidth, mViewHeight);
+			mPaintedBounds[i] = new Rectangle(0, 0, mViewWidth, mViewHeight);
+		}
+
 		// Show the welcome message
 		mShownWelcome = false;
 		mGameOverRun = false;
 
 		setBackground(COLOUR_BG);
 
-		// Set the listeners. For keys, DotEater and dots.
+		// The loop's thread. It doesn't keep the program running by itself.
+		mLoopThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				runLoop();
+			}
+		}, LOOP_THREAD_NAME);
+		mLoopThread.setDaemon(true);
+
+		// Set the listeners. For keys and the game.
 		addKeyListener(this);
-		mDotEater.setDieListener(this);
-		mDotCollection.setEatenListener(this);
+		mWorld.setGameOverListener(this);
+		mWorld.setTimings(mTimings);
+
+		// Something to draw before the loop first runs
+		mSnapshot.set(new WorldSnapshot(mWorld, 0, 0));
+	}
+
+	// Get things going!
+	private void startGame() {
+		mShownWelcome = true; // Don't show the welcome text again
+		mFullRepaintNeeded = true; // Including where it was
+
+		// The loop starts the world (so it runs and DotEater can be
+		// controlled) before its next tick, waking up if it's waiting
+		mPendingStart = true;
+		wakeLoop();
 	}
 
-	// Start a new round (after DotEater dies)
-	private void initRound() {
-		mIsPaused = true;
-		mIsGameOn = false;
-		mDotEater.reset();
-		for (Wall w : mWalls) {
-			w.reset();
+	// Start the loop's thread, or wake it up if it's waiting
+	private void wakeLoop() {
+		if (mLoopThread.getState() == Thread.State.NEW) {
+			mLoopThread.start();
+		} else {
+			LockSupport.unpark(mLoopThread);
 		}
-		goSlow();
 	}
 
-	// Start a new game (after DotEater eats all dots)
-	private void initGame() {
-		mDotCollection.init();
-		initRound();
+	// Stop the loop's thread for good, waiting for it to finish unless this
+	// is it. Safe to call more than once, or if it never started.
+	public void stopLoop() {
+		mLoopStopping = true;
+		LockSupport.unpark(mLoopThread);
+		if (Thread.currentThread() != mLoopThread) {
+			try {
+				mLoopThread.join(LOOP_STOP_TIMEOUT);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 
-	// Get things going!
-	private void startGame() {
-		mShownWelcome = true; // Don't show the welcome text again
-		mIsPaused = false; // Loop should run
-		mIsGameOn = true; // DotEater can be controlled
-
-		// Start a new loop if one is not running
-		if (!mIsLoopRunning) {
-			Thread loop = new Thread() {
-				@Override
-				public void run() {
-					gameLoop();
-				}
-			};
-			loop.start();
+	// Record the game and save it to "file" when it's over. Must be called
+	// before the game starts.
+	public void recordTo(File file) {
+		mReplay = new Replay(mWorld.getProfile(), mWorld.getSeed(),
+				GameWorld.BASE_TICK_RATE / (double) mTickRate);
+		mReplayFile = file;
+		mWorld.setReplay(mReplay);
+	}
+
+	// Draw frames from the loop's thread from now on, onto a canvas covering
+	// the playing area. Must be showing.
+	public void startActiveRendering() {
+		Canvas canvas = new Canvas() {
+			private static final long serialVersionUID = -3141842364452935127L;
+
+			// Shown or uncovered: the loop draws on it, not this thread
+			@Override
+			public void paint(Graphics g) {
+				requestRedraw();
+			}
+
+			@Override
+			public void update(Graphics g) {
+				requestRedraw();
+			}
+		};
+		// Keys still go to the playing area
+		canvas.setFocusable(false);
+		setLayout(new BorderLayout());
+		add(canvas, BorderLayout.CENTER);
+		validate();
+
+		try {
+			mActiveRenderer = new ActiveRenderer(canvas, 1000000000l / mFrameRate);
+		} catch (IllegalStateException | IllegalArgumentException ex) {
+			remove(canvas);
+			throw ex;
 		}
+		// The loop draws even before the game starts, so it needs to run
+		requestRedraw();
 	}
 
-	// Turn controls off and play DotEater's dying animation
-	private void stopGame() {
-		mIsGameOn = false;
-		mDotEater.startDying();
+	// Have the loop draw the last frame again
+	private void requestRedraw() {
+		mRedrawPending = true;
+		wakeLoop();
 	}
 
-	// Check if the game should stop
-	private void update() {
-		if (checkLoseCollisions()) {
-			stopGame();
+	// Draw "frameRate" frames a second. Must be called before the game
+	// starts.
+	public void setFrameRate(int frameRate) {
+		if (frameRate <= 0) {
+			throw new IllegalArgumentException("Frame rate must be positive: "
+					+ frameRate);
 		}
+		mFrameRate = frameRate;
+	}
+
+	// Spin for the last moment before each frame to be on time (true), or
+	// only sleep to save CPU (false)
+	public void setSpinning(boolean spinning) {
+		mPacer.setSpinning(spinning);
 	}
 
-	// You lose if DotEater touches a wall or the playing area's edges
-	private boolean checkLoseCollisions() {
-		// Think of DotEater as a rectangle for this
-		Rectangle2D pacArea = mDotEater.getBounds2D();
-		if ((pacArea.getX() <= 0) || (pacArea.getY() <= 0)
-				|| (pacArea.getMaxX() >= AREA_WIDTH)
-				|| (pacArea.getMaxY() >= AREA_HEIGHT)) {
-			// DotEater touches the playing area's edges
-			return true;
+	// Repaint only what changed (true) or everything (false) each frame
+	public void setDirtyRepainting(boolean dirtyRepainting) {
+		mDirtyRepainting = dirtyRepainting;
+		mFullRepaintNeeded = true;
+	}
+
+	// Draw everything, when Swing asks for it
+	@Override
+	public void paint(Graphics g) {
+		if (mActiveRenderer != null) {
+			// The loop draws everything, on the canvas covering this
+			return;
 		}
-		for (Wall w : mWalls) {
-			if (pacArea.intersects(w.getBounds2D())) {
-				// DotEater touches a wall
-				return true;
+
+		Graphics2D g2D = (Graphics2D) g;
+		WorldSnapshot snapshot = mSnapshot.get();
+		boolean dirtyRepainting = mDirtyRepainting;
+
+		GameEvents.FrameEvent event = new GameEvents.FrameEvent();
+		event.begin();
+		long start = System.nanoTime();
+		render(g2D, snapshot);
+		int mode = dirtyRepainting ? MODE_DIRTY : MODE_FULL;
+		mPaintTime[mode] += mTimings.record(FrameTimings.PAINT, start) - start;
+		commitFrameEvent(event, dirtyRepainting ? "dirty" : "full", snapshot);
+		mPaintCount[mode]++;
+		recordKeyToFrame(snapshot);
+
+		if (dirtyRepainting) {
+			// Things may have moved on since the loop asked for this repaint.
+			// Make sure whatever was drawn outside it gets repainted too.
+			Rectangle clip = g2D.getClipBounds(mPaintClip);
+			checkPainted(clip, mPaintedBounds[0],
+					toView(snapshot.getDotEaterBounds(mPaintBounds)));
+			Wall[] walls = mWorld.getWalls();
+			for (int i = 0; i < walls.length; i++) {
+				checkPainted(clip, mPaintedBounds[i + 1],
+						toView(snapshot.getWallBounds(walls[i], i, mPaintBounds)));
 			}
 		}
-		return false;
 	}
 
-	// Draw everything
+	// Turn an area of the arena into the area it's shown in
+	private Rectangle toView(Rectangle bounds) {
+		if (mViewScale != 1.0) {
+			bounds.setRect(bounds.x * mViewScale, bounds.y * mViewScale,
+					bounds.width * mViewScale, bounds.height * mViewScale);
+			// Allow for rounding
+			bounds.grow(1, 1);
+		}
+		return bounds;
+	}
+
+	// If something's old and new areas weren't both painted, ask for them to be
+	private void checkPainted(Rectangle clip, Rectangle painted, Rectangle now) {
+		painted.add(now);
+		if (clip != null && !clip.contains(painted)) {
+			repaint(painted);
+		}
+		painted.setBounds(now);
+	}
+
+	// Draw everything, as the loop last saw it
 	@Override
-	public void paint(Graphics g) {
-		Graphics2D g2D = (Graphics2D) g;
+	public void render(Graphics2D g2D) {
+		render(g2D, mSnapshot.get());
+	}
 
+	// Draw everything in "snapshot". Only what's within the clip (if any) is
+	// redrawn.
+	private void render(Graphics2D g2D, WorldSnapshot snapshot) {
 		// Clear the screen
 		g2D.setBackground(COLOUR_BG);
-		g2D.clearRect(0, 0, AREA_WIDTH, AREA_HEIGHT + BAR_HEIGHT);
+		Rectangle clip = g2D.getClipBounds();
+		if (clip != null) {
+			g2D.clearRect(clip.x, clip.y, clip.width, clip.height);
+		} else {
+			g2D.clearRect(0, 0, mViewWidth, mViewHeight + BAR_HEIGHT);
+		}
 
-		// Draw the status bar
-		g2D.setPaint(PAINT_BAR);
-		g2D.fillRect(0, AREA_HEIGHT, AREA_WIDTH, BAR_HEIGHT);
+		long time = System.nanoTime();
+		if (g2D.hitClip(0, mViewHeight, mViewWidth, BAR_HEIGHT)) {
+			// Draw the status bar, with score, lives and maybe statistics
+			mStatusBar.draw(g2D, 0, mViewHeight, snapshot.getScore(),
+					snapshot.getLives(), mShowStats ? mStatsLines : null);
+			time = mTimings.record(FrameTimings.DRAW_BAR, time);
+		}
 
-		// Show score and lives
-		updateScore(g2D);
-		updateLives(g2D);
+		// The arena is drawn shrunk to fit, if needed
+		AffineTransform at = g2D.getTransform();
+		g2D.scale(mViewScale, mViewScale);
 
 		// Show DotEater
-		mDotEater.draw(g2D);
+		snapshot.drawDotEater(g2D, mDotEaterSprites);
 
 		// Show the walls
-		for (Wall w : mWalls) {
-			w.draw(g2D);
-		}
+		snapshot.drawWalls(g2D, mWorld.getWalls(), mWallArea);
+
+		g2D.setTransform(at);
+		time = mTimings.record(FrameTimings.DRAW_ENTITIES, time);
 
 		// Show the welcome message
 		if (!mShownWelcome) {
 			g2D.setFont(FONT_WELCOME);
 			g2D.setPaint(COLOUR_WELCOME);
-			g2D.drawString(TEXT_WELCOME, WELCOME_X, WELCOME_Y);
+			g2D.drawString(TEXT_WELCOME, mViewWidth / 2 + WELCOME_X,
+					mViewHeight / 2 + WELCOME_Y);
 		}
 
 		// Show the dots
-		mDotCollection.draw(g2D);
-	}
-
-	// Draw score text
-	private void updateScore(Graphics2D g) {
-		g.setFont(FONT_SCORE);
-		g.setPaint(COLOUR_SCORE);
-		g.drawString(String.format(FORMAT_SCORE, mScore), 5, AREA_HEIGHT
-				+ BAR_HEIGHT - 5);
-	}
-
-	// Draw lives text
-	private void updateLives(Graphics2D g) {
-		g.setFont(FONT_LIVES);
-		g.setPaint(COLOUR_LIVES);
-		g.drawString(String.format(FORMAT_LIVES, mLives), AREA_WIDTH / 2 + 5,
-				AREA_HEIGHT + BAR_HEIGHT - 5);
+		time = System.nanoTime();
+		g2D.scale(mViewScale, mViewScale);
+		mDotLayer.draw(g2D, snapshot.getDots(), snapshot.getEatenCount());
+		g2D.setTransform(at);
+		mTimings.record(FrameTimings.DRAW_DOTS, time);
 	}
 
 	// Handle key presses
 	@Override
 	public void keyPressed(KeyEvent e) {
-		if (mIsGameOn) {
-			// If DotEater is controllable, set his direction
+		if (mWorld.isGameOn()) {
+			// If DotEater is controllable, queue the direction, and when it
+			// was pressed; the loop passes it to the world on its next tick
+			long time = System.nanoTime();
 			if (e.getKeyCode() == KeyEvent.VK_UP) {
-				mDotEater.setDirection(Direction.UP);
+				mInputs.offer(Direction.UP, time);
 			} else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-				mDotEater.setDirection(Direction.DOWN);
+				mInputs.offer(Direction.DOWN, time);
 			} else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-				mDotEater.setDirection(Direction.RIGHT);
+				mInputs.offer(Direction.RIGHT, time);
 			} else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-				mDotEater.setDirection(Direction.LEFT);
+				mInputs.offer(Direction.LEFT, time);
+			}
+		}
+
+		// Switch between repainting what changed and repainting everything
+		if (e.getKeyCode() == KeyEvent.VK_F2) {
+			setDirtyRepainting(!mDirtyRepainting);
+		}
+
+		// Show or hide the timing statistics
+		if (e.getKeyCode() == KeyEvent.VK_F3) {
+			mShowStats = !mShowStats;
+			if (mActiveRenderer != null) {
+				requestRedraw();
+			} else {
+				repaint(0, mViewHeight, mViewWidth, BAR_HEIGHT);
 			}
 		}
 
@@ -287,9 +515,14 @@ public class PlayingArea extends JPanel implements KeyListener,
 			startGame();
 		}
 
-		// Exit the game
+		// Exit the game, once the loop (if there is one) is between ticks
 		if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
-			gameOver(EXIT_TEXT_QUIT);
+			if (mLoopThread.isAlive()) {
+				mPendingQuit = true;
+				LockSupport.unpark(mLoopThread);
+			} else {
+				gameOver(EXIT_TEXT_QUIT);
+			}
 		}
 	}
 
@@ -305,67 +538,10 @@ public class PlayingArea extends JPanel implements KeyListener,
 		// Do nothing
 	}
 
-	// What to do when DotEater dies
+	// No more lives
 	@Override
-	public void onDotEaterDie() {
-		// Subtract from the score
-		subtractScore(SCORE_LOSE);
-		if (mLives > 0) {
-			// You've got more lives; start a new round
-			mLives--;
-			initRound();
-		} else {
-			// No more lives. Game over.
-			gameOver(EXIT_TEXT_LOSE);
-		}
-	}
-
-	// DotEater has eaten a dot. Add score depending on its size.
-	@Override
-	public void onDotEaten(DotStatus status) {
-		switch (status) {
-			case NORMAL:
-				mScore += SCORE_DOT;
-				break;
-			case PILL:
-				mScore += SCORE_PILL;
-				goFast();
-				break;
-			default:
-				break;
-		}
-	}
-
-	// You won! Start a new game.
-	@Override
-	public void onAllDotsEaten() {
-		mScore += SCORE_WIN;
-		mLives += LIVES_BONUS;
-		initGame();
-	}
-
-	// Tell the dot collection where DotEater is
-	@Override
-	public Circle getDotEaterLocation() {
-		return mDotEater.getCircle();
-	}
-
-	// Make DotEater and walls go fast
-	private void goFast() {
-		mDotEater.goFast();
-		for (Wall w : mWalls) {
-			w.goFast();
-		}
-		// Record when this began
-		mLastPillTime = System.nanoTime();
-	}
-
-	// Make DotEater and walls go slow
-	private void goSlow() {
-		mDotEater.goSlow();
-		for (Wall w : mWalls) {
-			w.goSlow();
-		}
+	public void onGameOver() {
+		gameOver(EXIT_TEXT_LOSE);
 	}
 
 	// Exit the game
@@ -374,7 +550,11 @@ public class PlayingArea extends JPanel implements KeyListener,
 		if (!mGameOverRun) {
 			mGameOverRun = true;
 			System.out.println(reason);
-			System.out.println(String.format("Score: %d", mScore));
+			System.out.println(String.format("Score: %d", mWorld.getScore()));
+			printFrameStats();
+			saveReplay();
+			// Nothing more for the loop to do
+			stopLoop();
 			try {
 				// Close the window
 				MainWindow mainWindow = (MainWindow) this.getTopLevelAncestor();
@@ -387,72 +567,297 @@ public class PlayingArea extends JPanel implements KeyListener,
 		}
 	}
 
-	// Subtract from the score but don't allow negatives
-	private void subtractScore(int scoreToSubtract) {
-		mScore -= scoreToSubtract;
-		if (mScore < 0) {
-			mScore = 0;
+	// Show how well drawing kept up
+	private void printFrameStats() {
+		long dropped = mFramesSkipped;
+		ActiveRenderer renderer = mActiveRenderer;
+		if (renderer != null) {
+			dropped += renderer.getFramesDropped();
+			System.out.println(String.format("Frames shown: %d",
+					renderer.getFramesShown()));
 		}
+		System.out.println(String.format("Frames dropped: %d", dropped));
+		printPaintStats("Full redraw", MODE_FULL);
+		printPaintStats("Dirty regions", MODE_DIRTY);
+		mTimings.print(System.out);
 	}
 
-	// The main game loop (runs on a separate thread)
-	// Followed advice from http://www.java-gaming.org/index.php/topic,24220.0
-	private void gameLoop() {
-		mIsLoopRunning = true;
+	// Save the game, if it was being recorded
+	private void saveReplay() {
+		if (mReplay != null) {
+			mReplay.finish(mWorld.getTicks(), mWorld.getScore());
+			try {
+				mReplay.save(mReplayFile);
+				System.out.println(String.format("Replay saved to %s (seed %d)",
+						mReplayFile, mReplay.getSeed()));
+			} catch (IOException ex) {
+				System.err.println("Can't save the replay: " + ex.getMessage());
+			}
+		}
+	}
+
+	// Show how long painting took in one repainting mode
+	private void printPaintStats(String name, int mode) {
+		long count = mPaintCount[mode];
+		if (count > 0) {
+			System.out.println(String.format("%s: %d frames painted, %.3f ms average",
+					name, count, mPaintTime[mode] / (double) count / 1000000));
+		}
+	}
+
+	// Ask Swing to repaint what changed since the last time, or everything
+	private void requestRepaint(WorldSnapshot snapshot) {
+		DotCollection.Placement dots = snapshot.getDots();
+		int generation = dots.getGeneration();
+		int eatenCount = snapshot.getEatenCount();
+
+		if (!mDirtyRepainting || mFullRepaintNeeded
+				|| generation != mRequestedGeneration) {
+			mFullRepaintNeeded = false;
+			mRequestedGeneration = generation;
+			mRequestedEatenCount = eatenCount;
+			repaint();
+			return;
+		}
+
+		// DotEater and the walls, where they were and where they are now
+		repaintMoved(mRequestedBounds[0],
+				toView(snapshot.getDotEaterBounds(mRequestBounds)));
+		Wall[] walls = mWorld.getWalls();
+		for (int i = 0; i < walls.length; i++) {
+			repaintMoved(mRequestedBounds[i + 1],
+					toView(snapshot.getWallBounds(walls[i], i, mRequestBounds)));
+		}
+
+		// The dots eaten since last time
+		for (int e = mRequestedEatenCount; e < eatenCount; e++) {
+			repaint(toView(dots.getEatenCellBounds(e, mRequestBounds)));
+		}
+		mRequestedEatenCount = eatenCount;
+
+		// The status bar, if the score, lives or statistics changed
+		int score = snapshot.getScore();
+		int lives = snapshot.getLives();
+		String[] statsLines = mStatsLines;
+		if (score != mRequestedScore || lives != mRequestedLives
+				|| (mShowStats && statsLines != mRequestedStatsLines)) {
+			mRequestedScore = score;
+			mRequestedLives = lives;
+			mRequestedStatsLines = statsLines;
+			repaint(0, mViewHeight, mViewWidth, BAR_HEIGHT);
+		}
+	}
+
+	// Ask Swing to repaint something's old and new areas
+	private void repaintMoved(Rectangle requested, Rectangle now) {
+		requested.add(now);
+		repaint(requested);
+		requested.setBounds(now);
+	}
+
+	// Work out the statistics to show again, if it's time to
+	private void updateStatsLines(long now) {
+		long elapsed = now - mStatsTime;
+		if (elapsed < STATS_INTERVAL) {
+			return;
+		}
+		ActiveRenderer renderer = mActiveRenderer;
+		long frames = renderer != null ? renderer.getFramesShown()
+				: mPaintCount[MODE_FULL] + mPaintCount[MODE_DIRTY];
+		long gcCount = 0;
+		long gcTime = 0;
+		for (GarbageCollectorMXBean gc : GC_BEANS) {
+			// Either can be -1 if the collector doesn't know
+			gcCount += Math.max(0, gc.getCollectionCount());
+			gcTime += Math.max(0, gc.getCollectionTime());
+		}
+
+		if (mStatsTime != 0) {
+			LatencyHistogram tick = mTimings.get(FrameTimings.TICK);
+			LatencyHistogram late = mTimings.get(FrameTimings.WAKE_LATE);
+			LatencyHistogram paint = mTimings.get(renderer != null
+					? FrameTimings.FRAME : FrameTimings.PAINT);
+			LatencyHistogram key = mTimings.get(FrameTimings.KEY_TO_FRAME);
+			mStatsLines = new String[] {
+					String.format(FORMAT_STATS_FRAMES,
+							(frames - mStatsFrames) * 1e9 / elapsed,
+							LatencyHistogram.toMillis(tick.getPercentile(0.5)),
+							LatencyHistogram.toMillis(tick.getPercentile(0.99)),
+							LatencyHistogram.toMillis(late.getPercentile(0.99))),
+					String.format(FORMAT_STATS_PAINT,
+							LatencyHistogram.toMillis(paint.getPercentile(0.99)),
+							LatencyHistogram.toMillis(key.getPercentile(0.99)),
+							gcCount - mStatsGcCount, gcTime - mStatsGcTime) };
+		}
+		mStatsTime = now;
+		mStatsFrames = frames;
+		mStatsGcCount = gcCount;
+		mStatsGcTime = gcTime;
+	}
+
+	// Hand the current state over to be drawn, "alpha" of the way to the
+	// next tick, then draw it either straight away or by asking Swing to
+	private void drawFrame(double alpha) {
+		WorldSnapshot snapshot = new WorldSnapshot(mWorld, alpha,
+				mAppliedInputTime);
+		mSnapshot.set(snapshot);
+
+		ActiveRenderer renderer = mActiveRenderer;
+		if (renderer != null) {
+			GameEvents.FrameEvent event = new GameEvents.FrameEvent();
+			event.begin();
+			renderer.render(this);
+			commitFrameEvent(event, "active", snapshot);
+			recordKeyToFrame(snapshot);
+		} else {
+			requestRepaint(snapshot);
+		}
+	}
+
+	// If the frame just shown is the first with a new key applied, count
+	// how long that key took to show
+	private void recordKeyToFrame(WorldSnapshot snapshot) {
+		long inputTime = snapshot.getInputTime();
+		if (inputTime != mShownInputTime) {
+			mShownInputTime = inputTime;
+			mTimings.record(FrameTimings.KEY_TO_FRAME, inputTime);
+		}
+	}
+
+	// Tell JFR (if it's listening) about a frame that's just been shown
+	private void commitFrameEvent(GameEvents.FrameEvent event, String mode,
+			WorldSnapshot snapshot) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.mode = mode;
+			event.alpha = snapshot.getAlpha();
+			event.walls = snapshot.getWallCount();
+			event.dotsRemaining = snapshot.getDotsRemaining();
+			event.commit();
+		}
+	}
+
+	// What the loop's thread does: wait while the world is paused, and run
+	// the game loop while it isn't, until stopped
+	private void runLoop() {
+		while (!mLoopStopping) {
+			if (mPendingQuit) {
+				mPendingQuit = false;
+				gameOver(EXIT_TEXT_QUIT);
+			} else if (mPendingStart) {
+				mPendingStart = false;
+				mWorld.start();
+			} else if (mRedrawPending) {
+				mRedrawPending = false;
+				ActiveRenderer renderer = mActiveRenderer;
+				if (renderer != null) {
+					renderer.render(this);
+				}
+			} else if (mWorld.isPaused()) {
+				// Until there's something to do. It may wake up for no
+				// reason, so check again either way.
+				LockSupport.park(this);
+			} else {
+				gameLoop();
+			}
+		}
+	}
 
-		// Initialise variable
-		mLastPillTime = System.nanoTime();
+	// The main game loop, run until the world pauses itself or the game is
+	// quit. The world always moves on in ticks of the same length; the time
+	// in between is saved up and drawn by interpolating between ticks.
+	// Frames have a beat of their own, and the loop wakes up for whichever
+	// of the next frame or the next tick is due first.
+	private void gameLoop() {
+		// How long a tick lasts and how far things move in each one
+		final long tickLength = 1000000000l / mTickRate;
+		final double tickDelta = GameWorld.BASE_TICK_RATE / (double) mTickRate;
+		// How long a frame lasts
+		final long frameLength = 1000000000l / mFrameRate;
 
 		// When the loop ran last
 		long lastLoopTime = System.nanoTime();
-		final long OPTIMAL_TIME = 1000000000 / 60; // 60 frames per second
-
-		// Stop the loop if mIsPaused == true
-		while (!mIsPaused) {
+		// When the next frame is due. Half a frame in, so that frames don't
+		// fall in step with ticks at the same rate, and always show the
+		// previous tick.
+		long nextFrame = lastLoopTime + frameLength / 2;
+		// Time that has passed but hasn't been ticked through yet
+		long accumulator = 0;
+		// How far (0 to 1) the loop is between the last tick and the next one
+		double alpha = 0;
+
+		// Stop the loop if the world has paused itself or the game is quit
+		while (!mWorld.isPaused() && !mPendingQuit && !mLoopStopping) {
 			long now = System.nanoTime();
-			long updateLength = now - lastLoopTime;
+			accumulator += now - lastLoopTime;
 			lastLoopTime = now;
-			// Ideally, the loop would run 60 times a second so this will be
-			// equal to 1. If not, things will move more or less to keep the
-			// animation smooth-looking.
-			double delta = updateLength / (double) OPTIMAL_TIME;
-
-			// If enough time has passed since the last pill was eaten, things
-			// can slow down.
-			if (now > mLastPillTime + DURATION_FAST) {
-				goSlow();
-			}
 
-			// Move DotEater and the walls based on the delta
-			mDotEater.move(delta);
-			if (mIsGameOn) {
-				for (Wall w : mWalls) {
-					w.move(delta);
+			// Run as many ticks as fit in the time that has passed
+			int ticks = 0;
+			while (accumulator >= tickLength && ticks < MAX_CATCH_UP_TICKS
+					&& !mWorld.isPaused()) {
+				if (mPendingStart) {
+					mPendingStart = false;
+					mWorld.start();
 				}
-			}
+				// Frames from now on are drawn from the last tick onwards,
+				// so they show in full the keys applied then
+				if (mTickInputTime != 0) {
+					mAppliedInputTime = mTickInputTime;
+					mTickInputTime = 0;
+				}
+				// Let the world move on, with the last key pressed. Any
+				// before it would be overridden in this tick anyway.
+				Direction input = null;
+				if (!mInputs.isEmpty()) {
+					mTickInputTime = mInputs.peekTime();
+					do {
+						input = mInputs.peekDirection();
+						mInputs.remove();
+					} while (!mInputs.isEmpty());
+				}
+				long tickStart = System.nanoTime();
+				mWorld.step(input, tickDelta);
+				mTimings.record(FrameTimings.TICK, tickStart);
 
-			// Check for collisions with dots
-			mDotCollection.checkCollisions();
-			// Check for losing condition
-			this.update();
+				accumulator -= tickLength;
+				ticks++;
+			}
+			if (accumulator >= tickLength) {
+				// Too far behind to catch up; let that time go
+				accumulator %= tickLength;
+			}
+			alpha = accumulator / (double) tickLength;
+
+			// Draw everything again, if a frame is due
+			if (now >= nextFrame) {
+				if (now - nextFrame >= frameLength) {
+					// Frames went by while busy; don't try to make them up
+					mFramesSkipped += (now - nextFrame) / frameLength;
+					nextFrame = now;
+				}
+				nextFrame += frameLength;
 
-			// Draw everything again
-			repaint();
+				long frameStart = System.nanoTime();
+				drawFrame(alpha);
+				mTimings.record(FrameTimings.FRAME, frameStart);
+				if (mShowStats) {
+					updateStatsLines(now);
+				}
+			}
 
-			// Try to ensure that
-			try {
-				Thread.sleep(10 - (System.nanoTime() - lastLoopTime) / 1000000);
-				// Thread.sleep(Math.abs(lastLoopTime - System.nanoTime()) /
-				// 1000000 + 10);
-			} catch (InterruptedException ex) {
-				// Do nothing.
-			} catch (IllegalArgumentException ex) {
-				// Do nothing. This might happen if the calculation above
-				// returns a negative number.
+			// Wait until the next tick or frame is due, and note how late
+			// that was. A pass that ran past it and didn't wait at all is
+			// late too; one that's early counts as 0.
+			long wakeUp = Math.min(now + tickLength - accumulator, nextFrame);
+			if (System.nanoTime() < wakeUp) {
+				mPacer.waitUntil(wakeUp);
 			}
+			mTimings.record(FrameTimings.WAKE_LATE, wakeUp);
 		}
 
-		// If we're here, the loop isn't running.
-		mIsLoopRunning = false;
+		// If we're here, the loop isn't running. Draw where it stopped.
+		mFullRepaintNeeded = true;
+		drawFrame(alpha);
 	}
 }
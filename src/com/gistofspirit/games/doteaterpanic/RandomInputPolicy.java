@@ -0,0 +1,88 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.util.Random;
+
+//A simple bot: turns at random now and then, and away from the edges when
+//he gets close to one
+public class RandomInputPolicy implements InputPolicy {
+	// How close to an edge DotEater gets before turning away
+	private static final double EDGE_MARGIN = 60;
+	// One in this many ticks, turn anyway
+	private static final int TURN_CHANCE = 40;
+	private static final Direction[] DIRECTIONS =
+			{ Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT };
+
+	// The bot's own randomness, separate from the world's
+	private Random mRandom;
+	// Where DotEater is; reused each tick
+	private Circle mLocation = new Circle();
+
+	// Constructor
+	public RandomInputPolicy(long seed) {
+		mRandom = new Random(seed);
+	}
+
+	// Make one for each game
+	public static final InputPolicy.Factory FACTORY = new InputPolicy.Factory() {
+		@Override
+		public InputPolicy create(long seed) {
+			return new RandomInputPolicy(seed);
+		}
+	};
+
+	@Override
+	public Direction nextInput(GameWorld world) {
+		DotEater dotEater = world.getDotEater();
+		dotEater.getCircle(mLocation);
+		if (isNearEdge(world, dotEater.getDirection())) {
+			// Pick a way that isn't towards an edge; start at a random one
+			int first = mRandom.nextInt(DIRECTIONS.length);
+			for (int i = 0; i < DIRECTIONS.length; i++) {
+				Direction dir = DIRECTIONS[(first + i) % DIRECTIONS.length];
+				if (!isNearEdge(world, dir)) {
+					return dir;
+				}
+			}
+			return null;
+		}
+		if (mRandom.nextInt(TURN_CHANCE) == 0) {
+			return DIRECTIONS[mRandom.nextInt(DIRECTIONS.length)];
+		}
+		return null;
+	}
+
+	// Whether going this way leads DotEater into an edge soon
+	private boolean isNearEdge(GameWorld world, Direction dir) {
+		double reach = mLocation.getRad() + EDGE_MARGIN;
+		switch (dir) {
+			case UP:
+				return mLocation.getY() - reach <= 0;
+			case DOWN:
+				return mLocation.getY() + reach >= world.getAreaHeight();
+			case LEFT:
+				return mLocation.getX() - reach <= 0;
+			case RIGHT:
+				return mLocation.getX() + reach >= world.getAreaWidth();
+			default:
+				return false;
+		}
+	}
+}
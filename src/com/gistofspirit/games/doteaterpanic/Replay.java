@@ -0,0 +1,249 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+//A recorded game: the arena, the seed and every input with the tick it came
+//on. GameWorld does the same thing given the same seed and inputs, so this is
+//enough to play the whole game again without a window, as fast as it'll go.
+//
+//Files are binary and small:
+//  "DEPR", format version (byte)
+//  profile: name (UTF), area width and height, dot columns and rows, pills
+//      and walls (varints)
+//  seed (long), tick delta (double)
+//  number of inputs (varint), then for each one the ticks since the last one
+//      (varint) and what it was (byte: START, or a Direction's ordinal + 1)
+//  ticks from the last input to the end (varint), final score (varint)
+public class Replay {
+	private static final byte[] MAGIC = { 'D', 'E', 'P', 'R' };
+	private static final int VERSION = 1;
+	// Input code for the world being started
+	private static final byte CODE_START = 0;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	// What was played
+	private final ArenaProfile mProfile;
+	private final long mSeed;
+	private final double mTickDelta;
+	// The inputs, in order: the tick each came on and what it was
+	private long[] mTicks = new long[64];
+	private byte[] mCodes = new byte[64];
+	private int mInputCount;
+	// How many ticks the game lasted and how it ended
+	private long mEndTick;
+	private int mScore;
+
+	// Constructor, for a game about to be recorded. "tickDelta" is the delta
+	// every tick will be run with.
+	public Replay(ArenaProfile profile, long seed, double tickDelta) {
+		mProfile = profile;
+		mSeed = seed;
+		mTickDelta = tickDelta;
+	}
+
+	// The world was started just before the given tick
+	public void recordStart(long tick) {
+		record(tick, CODE_START);
+	}
+
+	// DotEater was turned to face "dir" on the given tick
+	public void recordDirection(long tick, Direction dir) {
+		record(tick, (byte) (dir.ordinal() + 1));
+	}
+
+	private void record(long tick, byte code) {
+		if (mInputCount == mTicks.length) {
+			mTicks = Arrays.copyOf(mTicks, mInputCount * 2);
+			mCodes = Arrays.copyOf(mCodes, mInputCount * 2);
+		}
+		mTicks[mInputCount] = tick;
+		mCodes[mInputCount] = code;
+		mInputCount++;
+	}
+
+	// The game stopped after "ticks" ticks with this score
+	public void finish(long ticks, int score) {
+		mEndTick = ticks;
+		mScore = score;
+	}
+
+	// Play the game again, without drawing anything, and return the world as
+	// it was left at the end
+	public GameWorld play() {
+		GameWorld world = new GameWorld(mProfile, mSeed);
+		int input = 0;
+		while (world.getTicks() < mEndTick) {
+			long tick = world.getTicks();
+			Direction dir = null;
+			while (input < mInputCount && mTicks[input] == tick) {
+				if (mCodes[input] == CODE_START) {
+					world.start();
+				} else {
+					dir = DIRECTIONS[mCodes[input] - 1];
+				}
+				input++;
+			}
+			if (world.isPaused()) {
+				// The game stopped early; it won't go on by itself
+				break;
+			}
+			world.step(dir, mTickDelta);
+		}
+		return world;
+	}
+
+	// Play the game again and check it ends the same way
+	public boolean verify() {
+		GameWorld world = play();
+		return world.getTicks() == mEndTick && world.getScore() == mScore;
+	}
+
+	// Write the replay to a file
+	public void save(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+			out.writeUTF(mProfile.getName());
+			writeVarint(out, mProfile.getAreaWidth());
+			writeVarint(out, mProfile.getAreaHeight());
+			writeVarint(out, mProfile.getDotColumns());
+			writeVarint(out, mProfile.getDotRows());
+			writeVarint(out, mProfile.getMaxPills());
+			writeVarint(out, mProfile.getWallCount());
+			out.writeLong(mSeed);
+			out.writeDouble(mTickDelta);
+
+			writeVarint(out, mInputCount);
+			long lastTick = 0;
+			for (int i = 0; i < mInputCount; i++) {
+				writeVarint(out, mTicks[i] - lastTick);
+				out.writeByte(mCodes[i]);
+				lastTick = mTicks[i];
+			}
+			writeVarint(out, mEndTick - lastTick);
+			writeVarint(out, mScore);
+		} finally {
+			out.close();
+		}
+	}
+
+	// Read a replay from a file. Throws IOException if it isn't one.
+	public static Replay load(File file) throws IOException {
+		DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)));
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException(file + ": not a replay");
+			}
+			int version = in.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IOException(file + ": unknown replay version " + version);
+			}
+
+			ArenaProfile profile;
+			try {
+				profile = new ArenaProfile(in.readUTF(), (int) readVarint(in),
+						(int) readVarint(in), (int) readVarint(in),
+						(int) readVarint(in), (int) readVarint(in),
+						(int) readVarint(in));
+			} catch (IllegalArgumentException ex) {
+				throw new IOException(file + ": " + ex.getMessage(), ex);
+			}
+			Replay replay = new Replay(profile, in.readLong(), in.readDouble());
+
+			long inputs = readVarint(in);
+			long tick = 0;
+			for (long i = 0; i < inputs; i++) {
+				tick += readVarint(in);
+				byte code = in.readByte();
+				if (code < CODE_START || code > DIRECTIONS.length) {
+					throw new IOException(file + ": unknown input " + code);
+				}
+				replay.record(tick, code);
+			}
+			replay.finish(tick + readVarint(in), (int) readVarint(in));
+			return replay;
+		} finally {
+			in.close();
+		}
+	}
+
+	// Write a number that isn't negative in as few bytes as it needs, seven
+	// bits at a time, lowest first. The top bit says whether more follow.
+	private static void writeVarint(DataOutputStream out, long value)
+			throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	// Read a number written by writeVarint
+	private static long readVarint(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Number too long");
+	}
+
+	// The following functions return values
+	public ArenaProfile getProfile() {
+		return mProfile;
+	}
+
+	public long getSeed() {
+		return mSeed;
+	}
+
+	public double getTickDelta() {
+		return mTickDelta;
+	}
+
+	public int getInputCount() {
+		return mInputCount;
+	}
+
+	public long getEndTick() {
+		return mEndTick;
+	}
+
+	public int getScore() {
+		return mScore;
+	}
+}
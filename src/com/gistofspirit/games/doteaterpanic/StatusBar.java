@@ -0,0 +1,201 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+//The status bar under the arena: score, lives and (F3) the timing
+//statistics. It's kept drawn in an image, which is only drawn again when
+//something on it changes. The score and lives are put together from an
+//atlas of their labels and the digits, drawn once, so no text is formatted
+//or laid out while playing.
+public class StatusBar {
+	// Bar's colour
+	private static final Paint PAINT_BAR = Color.WHITE;
+	// Font to use for the score and lives
+	private static final Font FONT_SCORE = new Font("Serif", Font.PLAIN, 24);
+	// Font colour for score and lives
+	private static final Color COLOUR_SCORE = Color.BLACK;
+	// Labels for the score and the lives
+	private static final String TEXT_SCORE = "Score: ";
+	private static final String TEXT_LIVES = "Lives: ";
+	// Where the atlas keeps each label (after the digits 0 to 9)
+	private static final int GLYPH_SCORE = 10;
+	private static final int GLYPH_LIVES = 11;
+	// Room left around each piece of the atlas, for glyphs that stick out
+	// past their advance
+	private static final int GLYPH_PAD = 4;
+	// Where the text's baseline is, from the bottom of the bar
+	private static final int BASELINE_FROM_BOTTOM = 5;
+	// How to show the timing statistics, at the right of the bar
+	private static final Font FONT_STATS = new Font("SansSerif", Font.PLAIN, 11);
+	private static final Color COLOUR_STATS = Color.DARK_GRAY;
+
+	// The bar's size
+	private final int mWidth;
+	private final int mHeight;
+
+	// The bar as last drawn, and what was on it
+	private BufferedImage mImage;
+	private int mScore = -1;
+	private int mLives = -1;
+	private String[] mStatsLines;
+
+	// The labels and digits, side by side, and where each starts in there
+	// and how far it moves the text along
+	private BufferedImage mAtlas;
+	private int[] mGlyphX;
+	private int[] mGlyphAdvance;
+	// How far above the baseline the atlas's top is
+	private int mAtlasAscent;
+	// The digits being put together; reused each time
+	private int[] mDigits = new int[10];
+
+	// Constructor
+	public StatusBar(int width, int height) {
+		mWidth = width;
+		mHeight = height;
+	}
+
+	// Draw the bar at (x,y) with the given score and lives and, if they're
+	// not null, statistics lines
+	public void draw(Graphics2D g, int x, int y, int score, int lives,
+			String[] statsLines) {
+		if (mImage == null) {
+			mImage = g.getDeviceConfiguration().createCompatibleImage(mWidth,
+					mHeight, Transparency.OPAQUE);
+			createAtlas(g);
+			redraw(score, lives, statsLines);
+		} else if (score != mScore || lives != mLives
+				|| statsLines != mStatsLines) {
+			redraw(score, lives, statsLines);
+		}
+		g.drawImage(mImage, x, y, null);
+	}
+
+	// Draw the labels and digits once, the same way they'd be drawn
+	// straight onto the bar
+	private void createAtlas(Graphics2D g) {
+		FontMetrics metrics = g.getFontMetrics(FONT_SCORE);
+		String[] glyphs = new String[GLYPH_LIVES + 1];
+		for (int d = 0; d < 10; d++) {
+			glyphs[d] = String.valueOf(d);
+		}
+		glyphs[GLYPH_SCORE] = TEXT_SCORE;
+		glyphs[GLYPH_LIVES] = TEXT_LIVES;
+
+		mGlyphX = new int[glyphs.length];
+		mGlyphAdvance = new int[glyphs.length];
+		int width = 0;
+		for (int i = 0; i < glyphs.length; i++) {
+			mGlyphX[i] = width + GLYPH_PAD;
+			mGlyphAdvance[i] = metrics.stringWidth(glyphs[i]);
+			width += mGlyphAdvance[i] + GLYPH_PAD * 2;
+		}
+		mAtlasAscent = metrics.getMaxAscent() + GLYPH_PAD;
+		int height = mAtlasAscent + metrics.getMaxDescent() + GLYPH_PAD;
+
+		mAtlas = g.getDeviceConfiguration().createCompatibleImage(width,
+				height, Transparency.TRANSLUCENT);
+		Graphics2D atlasGraphics = mAtlas.createGraphics();
+		try {
+			atlasGraphics.setComposite(AlphaComposite.Clear);
+			atlasGraphics.fillRect(0, 0, width, height);
+			atlasGraphics.setComposite(AlphaComposite.SrcOver);
+			atlasGraphics.setFont(FONT_SCORE);
+			atlasGraphics.setPaint(COLOUR_SCORE);
+			for (int i = 0; i < glyphs.length; i++) {
+				atlasGraphics.drawString(glyphs[i], mGlyphX[i], mAtlasAscent);
+			}
+		} finally {
+			atlasGraphics.dispose();
+		}
+	}
+
+	// Draw the whole bar again
+	private void redraw(int score, int lives, String[] statsLines) {
+		mScore = score;
+		mLives = lives;
+		mStatsLines = statsLines;
+
+		Graphics2D g = mImage.createGraphics();
+		try {
+			g.setPaint(PAINT_BAR);
+			g.fillRect(0, 0, mWidth, mHeight);
+
+			int baseline = mHeight - BASELINE_FROM_BOTTOM;
+			drawNumber(g, GLYPH_SCORE, score, 5, baseline);
+			drawNumber(g, GLYPH_LIVES, lives, mWidth / 2 + 5, baseline);
+			if (statsLines != null) {
+				drawStats(g, statsLines);
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	// Draw a label and then a number from the atlas, starting at "x" on
+	// the baseline
+	private void drawNumber(Graphics2D g, int label, int number, int x,
+			int baseline) {
+		x = drawGlyph(g, label, x, baseline);
+
+		// Digits come out last first
+		int count = 0;
+		do {
+			mDigits[count++] = number % 10;
+			number /= 10;
+		} while (number > 0);
+		while (count > 0) {
+			x = drawGlyph(g, mDigits[--count], x, baseline);
+		}
+	}
+
+	// Draw one piece of the atlas at "x" on the baseline and return where
+	// the next one starts
+	private int drawGlyph(Graphics2D g, int glyph, int x, int baseline) {
+		int sx = mGlyphX[glyph] - GLYPH_PAD;
+		int sw = mGlyphAdvance[glyph] + GLYPH_PAD * 2;
+		int dx = x - GLYPH_PAD;
+		int dy = baseline - mAtlasAscent;
+		g.drawImage(mAtlas, dx, dy, dx + sw, dy + mAtlas.getHeight(),
+				sx, 0, sx + sw, mAtlas.getHeight(), null);
+		return x + mGlyphAdvance[glyph];
+	}
+
+	// Draw the statistics, right-aligned, one line above the other
+	private void drawStats(Graphics2D g, String[] lines) {
+		g.setFont(FONT_STATS);
+		g.setPaint(COLOUR_STATS);
+		FontMetrics metrics = g.getFontMetrics();
+		int y = (mHeight - metrics.getHeight() * lines.length) / 2
+				+ metrics.getAscent();
+		for (String line : lines) {
+			g.drawString(line, mWidth - metrics.stringWidth(line) - 5, y);
+			y += metrics.getHeight();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+//Runs things after a while of simulated time, each exactly once. Timers are
+//kept in a ring of slots, one per tick of delta==1, hashed by when they're
+//due; moving the time on only looks at the slots it passes, so it costs the
+//same however many timers are waiting. A timer due more than a whole turn of
+//the ring away just sits in its slot until its turn comes round.
+//Nothing is allocated once the timers exist, so it can run every tick.
+public class TimerWheel {
+	// How many slots the ring has. Must be a power of two.
+	private static final int SLOTS = 512;
+	private static final int MASK = SLOTS - 1;
+
+	// Something to run once its time comes. Each one can be waiting only
+	// once at a time; scheduling it again moves it.
+	public abstract static class Timer {
+		// When it's due, in simulated time
+		private double mDeadline;
+		// Which slot it's waiting in, or -1 if it isn't
+		private int mSlot = -1;
+		// The other timers in the same slot
+		private Timer mPrev;
+		private Timer mNext;
+
+		// What to do when it's due
+		protected abstract void onExpire();
+
+		// Whether it's waiting to run
+		public boolean isPending() {
+			return mSlot >= 0;
+		}
+	}
+
+	// The first timer waiting in each slot
+	private final Timer[] mSlots = new Timer[SLOTS];
+	// The earliest slot that may still have timers due in it
+	private long mNextSlot;
+
+	// Run "timer" once the time has moved past "deadline". If it's waiting
+	// already, it's moved instead.
+	public void schedule(Timer timer, double deadline) {
+		cancel(timer);
+		// Anything already due still has to be in a slot that's looked at
+		long slot = Math.max((long) Math.floor(deadline), mNextSlot);
+		int index = (int) slot & MASK;
+		timer.mDeadline = deadline;
+		timer.mSlot = index;
+		timer.mPrev = null;
+		timer.mNext = mSlots[index];
+		if (timer.mNext != null) {
+			timer.mNext.mPrev = timer;
+		}
+		mSlots[index] = timer;
+	}
+
+	// Don't run "timer" after all, if it's waiting
+	public void cancel(Timer timer) {
+		if (timer.mSlot < 0) {
+			return;
+		}
+		if (timer.mPrev != null) {
+			timer.mPrev.mNext = timer.mNext;
+		} else {
+			mSlots[timer.mSlot] = timer.mNext;
+		}
+		if (timer.mNext != null) {
+			timer.mNext.mPrev = timer.mPrev;
+		}
+		timer.mSlot = -1;
+		timer.mPrev = null;
+		timer.mNext = null;
+	}
+
+	// Move the time on to "time", running every timer whose deadline it's
+	// now past, earliest slot first. Timers may schedule or cancel others
+	// while they run.
+	public void advance(double time) {
+		long lastSlot = (long) Math.floor(time);
+		for (long slot = mNextSlot; slot <= lastSlot; slot++) {
+			runDue((int) slot & MASK, time);
+			if (slot - mNextSlot >= MASK) {
+				// Every slot has been looked at
+				break;
+			}
+		}
+		mNextSlot = Math.max(mNextSlot, lastSlot);
+	}
+
+	// Run the timers in slot "index" that are due by "time". The slot is
+	// looked through again from the start after each one, since running it
+	// may have changed what's in there.
+	private void runDue(int index, double time) {
+		Timer timer = mSlots[index];
+		while (timer != null) {
+			if (time > timer.mDeadline) {
+				cancel(timer);
+				timer.onExpire();
+				timer = mSlots[index];
+			} else {
+				timer = timer.mNext;
+			}
+		}
+	}
+}
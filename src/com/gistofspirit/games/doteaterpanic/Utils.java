@@ -49,6 +49,11 @@ public class Utils {
 		return rand.nextInt(max - min + 1) + min;
 	}
 
+	// Return the value "alpha" (0 to 1) of the way from "from" to "to"
+	public static double interpolate(double from, double to, double alpha) {
+		return from + (to - from) * alpha;
+	}
+
 	// Calculate the distance between the edges of two circles
 	public static double getDistanceBetweenCircles(Circle c1, Circle c2) {
 		double centreDistance = getDistanceBetweenCircleCentres(c1, c2);
@@ -57,8 +62,49 @@ public class Utils {
 
 	// Calculate the distance between the centres of two circles
 	public static double getDistanceBetweenCircleCentres(Circle c1, Circle c2) {
-		double hor = Math.abs(c1.getX() - c2.getX());
-		double ver = Math.abs(c1.getY() - c2.getY());
-		return Math.sqrt(Math.pow(hor, 2) + Math.pow(ver, 2));
+		return Math.sqrt(getSquaredDistance(c1.getX(), c1.getY(),
+				c2.getX(), c2.getY()));
+	}
+
+	// Whether two circles touch or overlap. Same as the distance between them
+	// being <= 0, but without the square root.
+	public static boolean areCirclesTouching(double x1, double y1, double rad1,
+			double x2, double y2, double rad2) {
+		double rad = rad1 + rad2;
+		return getSquaredDistance(x1, y1, x2, y2) <= rad * rad;
+	}
+
+	// Whether a circle moving in a straight line from (fromX, fromY) to (toX,
+	// toY) touches a still one at any point along the way
+	public static boolean isMovingCircleTouching(double fromX, double fromY,
+			double toX, double toY, double rad1,
+			double x2, double y2, double rad2) {
+		double rad = rad1 + rad2;
+		return getSquaredDistanceToSegment(x2, y2, fromX, fromY, toX, toY)
+				<= rad * rad;
+	}
+
+	// Calculate the square of the distance between the point (x, y) and the
+	// closest point of the line segment from (x1, y1) to (x2, y2)
+	public static double getSquaredDistanceToSegment(double x, double y,
+			double x1, double y1, double x2, double y2) {
+		double hor = x2 - x1;
+		double ver = y2 - y1;
+		double lengthSquared = hor * hor + ver * ver;
+		if (lengthSquared == 0) {
+			return getSquaredDistance(x, y, x1, y1);
+		}
+		// How far along the segment the closest point is (0 to 1)
+		double t = ((x - x1) * hor + (y - y1) * ver) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		return getSquaredDistance(x, y, x1 + hor * t, y1 + ver * t);
+	}
+
+	// Calculate the square of the distance between two points
+	public static double getSquaredDistance(double x1, double y1,
+			double x2, double y2) {
+		double hor = x1 - x2;
+		double ver = y1 - y2;
+		return hor * hor + ver * ver;
 	}
 }
@@ -21,7 +21,7 @@ package com.gistofspirit.games.doteaterpanic;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Paint;
-import java.awt.geom.AffineTransform;
+import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.util.Random;
 
@@ -40,10 +40,10 @@ public class Wall extends Rectangle2D.Double {
 	// The wall's speed when moving fast
 	private static final double SPEED_FAST = 20;
 
-	// Random generator
+	// Random generator, shared with the rest of the world
 	private Random mRandom;
 
-	// The wall's moving direction. Only DOWN and RIGHT have been tested...
+	// The wall's moving direction
 	private Direction mDirection;
 	// The wall's size as a rectangle
 	private double mWidth;
@@ -58,19 +58,22 @@ public class Wall extends Rectangle2D.Double {
 
 	// How far the wall has currently travelled
 	private double mDistance;
+	// How far it had travelled at the previous tick
+	private double mPrevDistance;
 	// At which point the wall has appeared
 	private double mPoint;
 	// The wall's current speed
 	private double mSpeed;
 
-	// Constructor
-	public Wall(Direction dir, double maxDistance, double minPoint, double maxPoint) {
+	// Constructor. Where the wall appears is picked with "random".
+	public Wall(Direction dir, double maxDistance, double minPoint,
+			double maxPoint, Random random) {
 		super();
 		mDirection = dir;
 
 		// Set the wall's size (as a rectangle) and movement limits depending on
-		// its direction. Only RIGHT and DOWN have been tested; UP and LEFT
-		// likely don't work correctly.
+		// its direction. UP and LEFT start past the far edge and move back
+		// towards 0.
 		switch (mDirection) {
 			case RIGHT:
 				mWidth = LENGTH;
@@ -105,7 +108,7 @@ public class Wall extends Rectangle2D.Double {
 		mMinPoint = minPoint;
 		mMaxPoint = maxPoint - THICKNESS;
 
-		mRandom = new Random();
+		mRandom = random;
 		// Initially the wall goes slowly
 		goSlow();
 
@@ -118,45 +121,86 @@ public class Wall extends Rectangle2D.Double {
 	// AffineTransformation
 	@Override
 	public Rectangle2D getBounds2D() {
+		return getBounds2D(new Rectangle2D.Double());
+	}
+
+	// Same as above, but put it in the given rectangle instead of a new one
+	public Rectangle2D getBounds2D(Rectangle2D bounds) {
+		return getBounds2D(mDistance, bounds);
+	}
+
+	// Where the wall was at the previous tick, in the given rectangle
+	public Rectangle2D getPrevBounds2D(Rectangle2D bounds) {
+		return getBounds2D(mPrevDistance, bounds);
+	}
+
+	// Where the wall is when it has travelled "distance"
+	private Rectangle2D getBounds2D(double distance, Rectangle2D bounds) {
 		switch (mDirection) {
 			case RIGHT:
-				return new Rectangle2D.Double(mDistance, mPoint, LENGTH, THICKNESS);
+				bounds.setRect(distance, mPoint, LENGTH, THICKNESS);
+				return bounds;
 			case DOWN:
-				return new Rectangle2D.Double(mPoint, mDistance, THICKNESS, LENGTH);
+				bounds.setRect(mPoint, distance, THICKNESS, LENGTH);
+				return bounds;
 			case LEFT:
-				return new Rectangle2D.Double(mMaxDistance - mDistance, mPoint, LENGTH, THICKNESS);
+				bounds.setRect(distance, mPoint, LENGTH, THICKNESS);
+				return bounds;
 			case UP:
-				return new Rectangle2D.Double(mMaxPoint - mPoint, mMaxDistance
-						- mDistance, THICKNESS, LENGTH);
+				bounds.setRect(mPoint, distance, THICKNESS, LENGTH);
+				return bounds;
 			default:
 				break;
 		}
-		return new Rectangle2D.Double(mPoint, mDistance, mWidth, mHeight);
+		bounds.setRect(mPoint, distance, mWidth, mHeight);
+		return bounds;
 	}
 
-	// Draw the wall at the position we want it
-	public void draw(Graphics2D g) {
-		AffineTransform at = g.getTransform();
-
-		// Depending on whether the wall is horizontal or vertical, its distance
-		// from the starting position and the point it has appeared at are
-		// reversed as coordinates.
+	// Where the wall is drawn. "alpha" is how far (0 to 1) we are between
+	// the previous tick and the current one. Depending on whether the wall is
+	// horizontal or vertical, its distance from the starting position and the
+	// point it has appeared at are reversed as coordinates.
+	public double getDrawnX(double alpha) {
 		switch (mDirection) {
 			case RIGHT:
 			case LEFT:
-				g.translate(mDistance, mPoint);
-				break;
+				return Utils.interpolate(mPrevDistance, mDistance, alpha);
+			default:
+				return mPoint;
+		}
+	}
+
+	public double getDrawnY(double alpha) {
+		switch (mDirection) {
 			case DOWN:
 			case UP:
-				g.translate(mPoint, mDistance);
-				break;
+				return Utils.interpolate(mPrevDistance, mDistance, alpha);
 			default:
-				break;
+				return mPoint;
 		}
+	}
+
+	// Draw the wall at (x,y), where it was when the world was last looked at
+	// (see WorldSnapshot). Its size never changes, so that's all it needs.
+	// "area" is any rectangle, reused for each wall. The paint has to be set
+	// already (see startDrawing), so a lot of walls can be drawn in a row
+	// without anything else changing.
+	public void draw(Graphics2D g, double x, double y, Rectangle2D area) {
+		area.setRect(x, y, mWidth, mHeight);
+		g.fill(area);
+	}
+
+	// Get ready to draw walls
+	public static void startDrawing(Graphics2D g) {
 		g.setPaint(PAINT);
-		g.fill(this);
+	}
 
-		g.setTransform(at);
+	// Put the area draw() covers at (x,y) in "bounds"
+	public Rectangle getDrawnBounds(double x, double y, Rectangle bounds) {
+		bounds.setRect(x, y, mWidth, mHeight);
+		// Allow for rounding when it's filled
+		bounds.grow(1, 1);
+		return bounds;
 	}
 
 	// Initialise the wall
@@ -166,6 +210,13 @@ public class Wall extends Rectangle2D.Double {
 		mPoint = Utils.getRandomBetween(mRandom, (int) mMinPoint, (int) mMaxPoint);
 		// Move it back to the beginning
 		mDistance = mMinDistance;
+		// Don't draw it sliding back from where it was
+		savePosition();
+	}
+
+	// Remember where the wall is before the world moves on
+	public void savePosition() {
+		mPrevDistance = mDistance;
 	}
 
 	// Make the wall go fast
@@ -192,7 +243,7 @@ public class Wall extends Rectangle2D.Double {
 				return;
 			case LEFT:
 			case UP:
-				// In these two cases, the wall goes toward 0. Not tested.
+				// In these two cases, the wall goes toward 0.
 				if (mDistance > mMaxDistance) {
 					mDistance -= mSpeed * delta;
 				} else {
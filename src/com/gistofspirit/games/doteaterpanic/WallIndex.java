@@ -0,0 +1,206 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.geom.Rectangle2D;
+
+//Finds which walls might touch an area without checking every wall ("sweep
+//and prune"). The walls are kept sorted by the left edge of the area they
+//swept through since the previous tick; since that's never wider than the
+//widest one, only the walls whose left edge falls within that distance of
+//the area need a closer look. Walls only move a little each tick, so keeping
+//them sorted is cheap.
+//
+//The closer look follows both the wall and whatever it's checked against
+//from where they were at the previous tick to where they are now, so neither
+//can pass through the other between ticks however big the delta was.
+public class WallIndex {
+	// The walls, sorted by the left edge of the area they swept through
+	private Wall[] mWalls;
+	// The area each one swept through, in the same order
+	private double[] mMinX;
+	private double[] mMaxX;
+	private double[] mMinY;
+	private double[] mMaxY;
+	// Where each one was at the previous tick, and how far it moved since
+	private double[] mPrevX;
+	private double[] mPrevY;
+	private double[] mWidth;
+	private double[] mHeight;
+	private double[] mMoveX;
+	private double[] mMoveY;
+	// The widest area a wall swept through
+	private double mMaxWidth;
+	// A wall's areas; reused for each one
+	private Rectangle2D.Double mPrevArea = new Rectangle2D.Double();
+	private Rectangle2D.Double mArea = new Rectangle2D.Double();
+
+	// Constructor
+	public WallIndex(Wall[] walls) {
+		int count = walls.length;
+		mWalls = walls.clone();
+		mMinX = new double[count];
+		mMaxX = new double[count];
+		mMinY = new double[count];
+		mMaxY = new double[count];
+		mPrevX = new double[count];
+		mPrevY = new double[count];
+		mWidth = new double[count];
+		mHeight = new double[count];
+		mMoveX = new double[count];
+		mMoveY = new double[count];
+		update();
+	}
+
+	// Catch up with where the walls are now. Call this after they move.
+	public void update() {
+		mMaxWidth = 0;
+		for (int i = 0; i < mWalls.length; i++) {
+			mWalls[i].getPrevBounds2D(mPrevArea);
+			mWalls[i].getBounds2D(mArea);
+			mPrevX[i] = mPrevArea.getX();
+			mPrevY[i] = mPrevArea.getY();
+			mWidth[i] = mPrevArea.getWidth();
+			mHeight[i] = mPrevArea.getHeight();
+			mMoveX[i] = mArea.getX() - mPrevArea.getX();
+			mMoveY[i] = mArea.getY() - mPrevArea.getY();
+			mMinX[i] = Math.min(mPrevArea.getMinX(), mArea.getMinX());
+			mMaxX[i] = Math.max(mPrevArea.getMaxX(), mArea.getMaxX());
+			mMinY[i] = Math.min(mPrevArea.getMinY(), mArea.getMinY());
+			mMaxY[i] = Math.max(mPrevArea.getMaxY(), mArea.getMaxY());
+			mMaxWidth = Math.max(mMaxWidth, mMaxX[i] - mMinX[i]);
+		}
+
+		// Insertion sort; the walls are nearly sorted already, so this is
+		// close to a single pass
+		for (int i = 1; i < mWalls.length; i++) {
+			if (mMinX[i - 1] > mMinX[i]) {
+				int j = i;
+				while (j > 0 && mMinX[j - 1] > mMinX[j]) {
+					swap(j - 1, j);
+					j--;
+				}
+			}
+		}
+	}
+
+	// Swap two walls' places
+	private void swap(int i, int j) {
+		Wall wall = mWalls[i];
+		mWalls[i] = mWalls[j];
+		mWalls[j] = wall;
+		swap(mMinX, i, j);
+		swap(mMaxX, i, j);
+		swap(mMinY, i, j);
+		swap(mMaxY, i, j);
+		swap(mPrevX, i, j);
+		swap(mPrevY, i, j);
+		swap(mWidth, i, j);
+		swap(mHeight, i, j);
+		swap(mMoveX, i, j);
+		swap(mMoveY, i, j);
+	}
+
+	private static void swap(double[] values, int i, int j) {
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	// Whether any wall overlaps (in the same way as Rectangle2D.intersects) a
+	// rectangle that moved in a straight line from "from" to "to" since the
+	// previous tick, at any point along the way. Both must be the same size.
+	public boolean intersectsAny(Rectangle2D from, Rectangle2D to) {
+		if (to.isEmpty()) {
+			return false;
+		}
+		double minX = Math.min(from.getMinX(), to.getMinX());
+		double maxX = Math.max(from.getMaxX(), to.getMaxX());
+		double minY = Math.min(from.getMinY(), to.getMinY());
+		double maxY = Math.max(from.getMaxY(), to.getMaxY());
+		double moveX = to.getX() - from.getX();
+		double moveY = to.getY() - from.getY();
+
+		// Skip the walls that end before the area starts, even the widest
+		for (int i = findFirst(minX - mMaxWidth); i < mWalls.length
+				&& mMinX[i] < maxX; i++) {
+			if (mMaxX[i] > minX && mMinY[i] < maxY && mMaxY[i] > minY
+					&& intersectsMoving(from, moveX, moveY, i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Whether the rectangle, moving by (moveX, moveY) from "from", ever
+	// overlaps the given wall while both move. Seen from the wall, the
+	// rectangle moves in a straight line, so it's enough to find when it
+	// overlaps it along each axis and check those times have something in
+	// common within the tick.
+	private boolean intersectsMoving(Rectangle2D from, double moveX,
+			double moveY, int i) {
+		// When they overlap along each axis, as a fraction of the tick
+		double enter = 0;
+		double exit = 1;
+
+		double x = from.getX() - mPrevX[i];
+		double move = moveX - mMoveX[i];
+		if (move == 0) {
+			if (x <= -from.getWidth() || x >= mWidth[i]) {
+				return false;
+			}
+		} else {
+			double enterX = (-from.getWidth() - x) / move;
+			double exitX = (mWidth[i] - x) / move;
+			enter = Math.max(enter, Math.min(enterX, exitX));
+			exit = Math.min(exit, Math.max(enterX, exitX));
+		}
+
+		double y = from.getY() - mPrevY[i];
+		move = moveY - mMoveY[i];
+		if (move == 0) {
+			if (y <= -from.getHeight() || y >= mHeight[i]) {
+				return false;
+			}
+		} else {
+			double enterY = (-from.getHeight() - y) / move;
+			double exitY = (mHeight[i] - y) / move;
+			enter = Math.max(enter, Math.min(enterY, exitY));
+			exit = Math.min(exit, Math.max(enterY, exitY));
+		}
+
+		// Only edges touching doesn't count as overlapping
+		return enter < exit;
+	}
+
+	// The first wall whose left edge is after "x"
+	private int findFirst(double x) {
+		int low = 0;
+		int high = mWalls.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (mMinX[middle] <= x) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+Dot Eater Panic
+Copyright (C) 2022  Rea Tasopoulou
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package com.gistofspirit.games.doteaterpanic;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+
+//What the world looked like at one moment, for drawing it. The game loop
+//makes a new one for each frame and hands it over whole, so whoever draws
+//(Swing or the loop itself) never sees a world that's halfway through a tick
+//and never has to wait for one. Nothing in here changes once it's made.
+public final class WorldSnapshot {
+	// How far (0 to 1) the loop was between the last tick and the next one;
+	// everything below is already placed that far along
+	private final double mAlpha;
+	// DotEater
+	private final double mDotEaterX;
+	private final double mDotEaterY;
+	private final double mDotEaterTheta;
+	private final double mFeetAngle;
+	private final boolean mIsFast;
+	// The walls, in the same order as the world's
+	private final double[] mWallX;
+	private final double[] mWallY;
+	// The dots, and how many of them had been eaten
+	private final DotCollection.Placement mDots;
+	private final int mEatenCount;
+	private final int mDotsRemaining;
+	private final int mScore;
+	private final int mLives;
+	// When the oldest key of the last tick that had any was pressed (from
+	// System.nanoTime), once it's shown in full, or 0 if none has been
+	private final long mInputTime;
+
+	// Look at "world" as it should be drawn "alpha" of the way to its next
+	// tick, with the keys pressed up to "inputTime" shown. Must be called
+	// from the thread that moves the world on (or while nothing does).
+	public WorldSnapshot(GameWorld world, double alpha, long inputTime) {
+		mAlpha = alpha;
+		mInputTime = inputTime;
+
+		DotEater dotEater = world.getDotEater();
+		mDotEaterX = dotEater.getDrawnX(alpha);
+		mDotEaterY = dotEater.getDrawnY(alpha);
+		mDotEaterTheta = dotEater.getDrawnTheta(alpha);
+		mFeetAngle = dotEater.getFeetAngle();
+		mIsFast = dotEater.isFast();
+
+		Wall[] walls = world.getWalls();
+		mWallX = new double[walls.length];
+		mWallY = new double[walls.length];
+		for (int i = 0; i < walls.length; i++) {
+			mWallX[i] = walls[i].getDrawnX(alpha);
+			mWallY[i] = walls[i].getDrawnY(alpha);
+		}
+
+		DotCollection dots = world.getDotCollection();
+		mDots = dots.getPlacement();
+		mEatenCount = dots.getEatenCount();
+		mDotsRemaining = dots.getDotsRemaining();
+		mScore = world.getScore();
+		mLives = world.getLives();
+	}
+
+	public double getAlpha() {
+		return mAlpha;
+	}
+
+	// Draw DotEater as he was, with "sprites"
+	public void drawDotEater(Graphics2D g, DotEaterSprites sprites) {
+		sprites.draw(g, mDotEaterX, mDotEaterY, mDotEaterTheta, mFeetAngle,
+				mIsFast);
+	}
+
+	// Put the area DotEater was drawn in, in "bounds"
+	public Rectangle getDotEaterBounds(Rectangle bounds) {
+		return DotEaterSprites.getDrawnBounds(mDotEaterX, mDotEaterY, bounds);
+	}
+
+	// Draw all the walls where they were, one after the other. "area" is
+	// any rectangle, reused for each wall.
+	public void drawWalls(Graphics2D g, Wall[] walls, Rectangle2D area) {
+		Wall.startDrawing(g);
+		for (int i = 0; i < walls.length; i++) {
+			walls[i].draw(g, mWallX[i], mWallY[i], area);
+		}
+	}
+
+	// Put the area the "i"th wall was drawn in, in "bounds"
+	public Rectangle getWallBounds(Wall wall, int i,
+			Rectangle bounds) {
+		return wall.getDrawnBounds(mWallX[i], mWallY[i], bounds);
+	}
+
+	// The following functions return values
+	public int getWallCount() {
+		return mWallX.length;
+	}
+
+	public DotCollection.Placement getDots() {
+		return mDots;
+	}
+
+	public int getEatenCount() {
+		return mEatenCount;
+	}
+
+	public int getDotsRemaining() {
+		return mDotsRemaining;
+	}
+
+	public int getScore() {
+		return mScore;
+	}
+
+	public int getLives() {
+		return mLives;
+	}
+
+	public long getInputTime() {
+		return mInputTime;
+	}
+}